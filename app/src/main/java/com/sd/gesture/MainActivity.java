@@ -23,4 +23,9 @@ public class MainActivity extends AppCompatActivity
     {
         startActivity(new Intent(this, TestViewDragActivity.class));
     }
+
+    public void onClickTestStrokeBufferActivity(View view)
+    {
+        startActivity(new Intent(this, TestStrokeBufferActivity.class));
+    }
 }
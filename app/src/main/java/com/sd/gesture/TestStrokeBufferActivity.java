@@ -0,0 +1,108 @@
+package com.sd.gesture;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.View;
+import android.widget.TextView;
+
+import com.sd.lib.gesture.FStrokeBuffer;
+
+import java.util.Random;
+
+/**
+ * 笔画抽稀的性能测试，对比不同参数下每秒处理的点数和保存的点数
+ */
+public class TestStrokeBufferActivity extends AppCompatActivity
+{
+    private static final int POINT_COUNT = 500000;
+
+    private TextView tv_result;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState)
+    {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_test_stroke_buffer);
+        tv_result = findViewById(R.id.tv_result);
+    }
+
+    public void onClickRun(final View view)
+    {
+        view.setEnabled(false);
+        tv_result.setText("running...");
+
+        new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final float[] points = createStroke(POINT_COUNT);
+                final StringBuilder builder = new StringBuilder();
+                builder.append("input points:").append(POINT_COUNT)
+                        .append(" raw bytes:").append(POINT_COUNT * 8).append("\n\n");
+
+                benchmark(builder, points, 0, 0);
+                benchmark(builder, points, 2, 0);
+                benchmark(builder, points, 2, 5);
+                benchmark(builder, points, 4, 10);
+
+                runOnUiThread(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        tv_result.setText(builder);
+                        view.setEnabled(true);
+                    }
+                });
+            }
+        }).start();
+    }
+
+    private static void benchmark(StringBuilder builder, float[] points, float minDistance, float maxAngle)
+    {
+        final FStrokeBuffer buffer = new FStrokeBuffer();
+        buffer.setTolerance(minDistance, maxAngle);
+
+        // 预热
+        feed(buffer, points);
+        buffer.reset();
+
+        final long start = System.nanoTime();
+        feed(buffer, points);
+        buffer.finish();
+        final long nanos = System.nanoTime() - start;
+
+        final int count = points.length / 2;
+        builder.append("minDistance:").append(minDistance)
+                .append(" maxAngle:").append(maxAngle).append("\n")
+                .append("points/s:").append(count * 1000000000L / Math.max(nanos, 1))
+                .append(" retained:").append(buffer.getPointCount())
+                .append(" bytes:").append(buffer.getRetainedBytes()).append("\n\n");
+    }
+
+    private static void feed(FStrokeBuffer buffer, float[] points)
+    {
+        for (int i = 0; i < points.length; i += 2)
+        {
+            buffer.addPoint(points[i], points[i + 1]);
+        }
+    }
+
+    /**
+     * 模拟手写笔画，螺旋线叠加小幅抖动
+     */
+    private static float[] createStroke(int count)
+    {
+        final Random random = new Random(0);
+        final float[] points = new float[count * 2];
+        for (int i = 0; i < count; i++)
+        {
+            final double angle = i * 0.002;
+            final double radius = 100 + i * 0.002;
+            points[i * 2] = (float) (500 + Math.cos(angle) * radius + random.nextFloat() - 0.5f);
+            points[i * 2 + 1] = (float) (500 + Math.sin(angle) * radius + random.nextFloat() - 0.5f);
+        }
+        return points;
+    }
+}
@@ -98,6 +98,13 @@ public class ViewDragFrameLayout extends FrameLayout
                     offsetTopAndBottomLegal(mChild, dy);
                 }
 
+                @Override
+                public boolean shouldConsumeScrollEvent(MotionEvent event)
+                {
+                    setChild(findMaxTopChild(event));
+                    return mChild != null;
+                }
+
                 @Override
                 public void onEventFinish(VelocityTracker velocityTracker, MotionEvent event)
                 {
@@ -296,6 +303,14 @@ public class ViewDragFrameLayout extends FrameLayout
         return getGestureManager().onTouchEvent(event);
     }
 
+    @Override
+    public boolean onGenericMotionEvent(MotionEvent event)
+    {
+        if (getGestureManager().onGenericMotionEvent(event))
+            return true;
+        return super.onGenericMotionEvent(event);
+    }
+
     @Override
     public void computeScroll()
     {
@@ -0,0 +1,27 @@
+package com.sd.lib.gesture.core;
+
+/**
+ * 平台无关的事件动作，数值和android.view.MotionEvent一致，平台层可以直接传入事件的action
+ */
+public final class GestureEvent
+{
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+
+    private GestureEvent()
+    {
+    }
+
+    /**
+     * 是否是手势结束的动作
+     *
+     * @param action
+     * @return
+     */
+    public static boolean isFinishAction(int action)
+    {
+        return action == ACTION_UP || action == ACTION_CANCEL;
+    }
+}
@@ -0,0 +1,139 @@
+package com.sd.lib.gesture.core;
+
+/**
+ * 手势相关的计算
+ */
+public final class GestureMath
+{
+    private static final float RESISTANCE_COEFFICIENT = 0.55f;
+
+    private GestureMath()
+    {
+    }
+
+    /**
+     * 返回移动方向和某个轴的夹角
+     *
+     * @param axisDelta  轴方向的增量
+     * @param crossDelta 另一个轴方向的增量
+     * @return 角度[0, 90]，axisDelta为0的时候返回0
+     */
+    public static double getDegree(float axisDelta, float crossDelta)
+    {
+        if (axisDelta == 0)
+            return 0;
+
+        final float angle = Math.abs(crossDelta) / Math.abs(axisDelta);
+        return Math.toDegrees(Math.atan(angle));
+    }
+
+    /**
+     * 返回合理的增量
+     *
+     * @param current 当前值
+     * @param min     最小值
+     * @param max     最大值
+     * @param delta   增量
+     * @return
+     */
+    public static int getLegalDelta(int current, int min, int max, int delta)
+    {
+        if (delta == 0)
+            return 0;
+
+        final int future = current + delta;
+        if (future < min)
+        {
+            delta += (min - future);
+        } else if (future > max)
+        {
+            delta += (max - future);
+        }
+        return delta;
+    }
+
+    /**
+     * 返回带阻力的增量，超出范围的部分会有橡皮筋效果的阻力，越往外阻力越大，最多超出maxOverScroll
+     *
+     * @param current       当前值
+     * @param min           最小值
+     * @param max           最大值
+     * @param delta         增量
+     * @param maxOverScroll 最大可以超出范围的距离，小于等于0的时候和{@link #getLegalDelta(int, int, int, int)}一致
+     * @return
+     */
+    public static int getResistedDelta(int current, int min, int max, int delta, int maxOverScroll)
+    {
+        if (delta == 0)
+            return 0;
+
+        if (maxOverScroll <= 0)
+            return getLegalDelta(current, min, max, delta);
+
+        // 先换算成没有阻力时候的值，加上增量后再换算回来
+        final float raw = removeResistance(current, min, max, maxOverScroll);
+        final int future = Math.round(applyResistance(raw + delta, min, max, maxOverScroll));
+        return future - current;
+    }
+
+    private static float applyResistance(float raw, int min, int max, int maxOverScroll)
+    {
+        if (raw < min)
+            return min - resist(min - raw, maxOverScroll);
+        if (raw > max)
+            return max + resist(raw - max, maxOverScroll);
+        return raw;
+    }
+
+    private static float removeResistance(int value, int min, int max, int maxOverScroll)
+    {
+        if (value < min)
+            return min - unresist(min - value, maxOverScroll);
+        if (value > max)
+            return max + unresist(value - max, maxOverScroll);
+        return value;
+    }
+
+    private static float resist(float distance, int maxOverScroll)
+    {
+        return (1.0f - 1.0f / (distance * RESISTANCE_COEFFICIENT / maxOverScroll + 1.0f)) * maxOverScroll;
+    }
+
+    private static float unresist(float overScroll, int maxOverScroll)
+    {
+        overScroll = Math.min(overScroll, maxOverScroll - 1);
+        return overScroll * maxOverScroll / ((maxOverScroll - overScroll) * RESISTANCE_COEFFICIENT);
+    }
+
+    /**
+     * 计算时长
+     *
+     * @param dx          x方向移动距离
+     * @param dy          y方向移动距离
+     * @param distanceMax 最大可以移动距离
+     * @param durationMax 最大时长
+     * @param durationMin 最小时长
+     * @return
+     */
+    public static int computeDuration(int dx, int dy, int distanceMax, int durationMax, int durationMin)
+    {
+        durationMax = Math.abs(durationMax);
+        durationMin = Math.abs(durationMin);
+        distanceMax = Math.abs(distanceMax);
+
+        if (distanceMax == 0)
+            return durationMin;
+
+        if (durationMin > durationMax)
+            throw new IllegalArgumentException();
+
+        final float distance = (float) Math.sqrt(Math.abs(dx * dx) + Math.abs(dy * dy));
+        if (distance == 0)
+            return 0;
+
+        final float disPercent = distance / distanceMax;
+        final int duration = (int) ((disPercent * durationMin) + durationMin);
+
+        return Math.min(duration, durationMax);
+    }
+}
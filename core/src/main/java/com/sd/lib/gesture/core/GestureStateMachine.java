@@ -0,0 +1,259 @@
+package com.sd.lib.gesture.core;
+
+/**
+ * 手势状态机，保存拦截和消费标识、状态以及本次手势的生命周期信息
+ * <br>
+ * 需要延迟的操作通过{@link Listener}交给平台层执行
+ */
+public class GestureStateMachine
+{
+    /**
+     * 空闲
+     */
+    public static final int STATE_IDLE = 0;
+    /**
+     * 消费事件
+     */
+    public static final int STATE_CONSUME = 1;
+    /**
+     * 滚动
+     */
+    public static final int STATE_FLING = 2;
+
+    private int mState = STATE_IDLE;
+    private boolean mIdlePending;
+
+    private boolean mTagIntercept;
+    private boolean mTagConsume;
+
+    private boolean mHasConsumeEvent;
+    private boolean mIsCancelConsumeEvent;
+
+    private final Listener mListener;
+
+    public GestureStateMachine(Listener listener)
+    {
+        if (listener == null)
+            throw new NullPointerException();
+        mListener = listener;
+    }
+
+    public int getState()
+    {
+        return mState;
+    }
+
+    /**
+     * 设置状态，会取消等待中的空闲状态
+     *
+     * @param state {@link #STATE_IDLE}等
+     */
+    public void setState(int state)
+    {
+        if (state < STATE_IDLE || state > STATE_FLING)
+            throw new IllegalArgumentException("Illegal state:" + state);
+
+        if (mIdlePending)
+        {
+            mIdlePending = false;
+            mListener.onIdleCancel();
+        }
+
+        final int old = mState;
+        if (old != state)
+        {
+            mState = state;
+            mListener.onStateChanged(old, state);
+        }
+    }
+
+    /**
+     * 请求延迟进入空闲状态，平台层在合适的时机调用{@link #commitIdle()}
+     * <br>
+     * 在此之前如果有其他状态被设置，请求会被取消
+     */
+    public void requestIdle()
+    {
+        mIdlePending = true;
+        mListener.onIdleRequest();
+    }
+
+    /**
+     * 执行延迟的空闲状态
+     *
+     * @return true-进入了空闲状态
+     */
+    public boolean commitIdle()
+    {
+        if (!mIdlePending)
+            return false;
+
+        mIdlePending = false;
+        setState(STATE_IDLE);
+        return true;
+    }
+
+    public boolean isIdlePending()
+    {
+        return mIdlePending;
+    }
+
+    //---------- tag start ----------
+
+    public boolean isTagIntercept()
+    {
+        return mTagIntercept;
+    }
+
+    public boolean isTagConsume()
+    {
+        return mTagConsume;
+    }
+
+    public void setTagIntercept(boolean tag)
+    {
+        if (mTagIntercept != tag)
+        {
+            mTagIntercept = tag;
+            mListener.onTagInterceptChanged(tag);
+        }
+    }
+
+    /**
+     * 设置是否需要消费事件标识，设置为true的时候进入{@link #STATE_CONSUME}状态
+     *
+     * @param tag
+     */
+    public void setTagConsume(boolean tag)
+    {
+        if (mTagConsume != tag)
+        {
+            mTagConsume = tag;
+            if (tag)
+                setState(STATE_CONSUME);
+
+            mListener.onTagConsumeChanged(tag);
+        }
+    }
+
+    public void resetTags()
+    {
+        setTagIntercept(false);
+        setTagConsume(false);
+    }
+
+    //---------- tag end ----------
+
+    //---------- lifecycle start ----------
+
+    /**
+     * 从按下到当前是否消费过事件
+     *
+     * @return
+     */
+    public boolean hasConsumeEvent()
+    {
+        return mHasConsumeEvent;
+    }
+
+    /**
+     * 是否取消过消费事件
+     *
+     * @return
+     */
+    public boolean isCancelConsumeEvent()
+    {
+        return mIsCancelConsumeEvent;
+    }
+
+    public void setHasConsumeEvent(boolean has)
+    {
+        mHasConsumeEvent = has;
+    }
+
+    //---------- lifecycle end ----------
+
+    /**
+     * 滚动开始
+     */
+    public void onScrollerStart()
+    {
+        setState(STATE_FLING);
+    }
+
+    /**
+     * 滚动结束，如果还在消费事件回到{@link #STATE_CONSUME}，否则请求进入空闲状态
+     */
+    public void onScrollerFinish()
+    {
+        if (mTagConsume)
+            setState(STATE_CONSUME);
+        else
+            requestIdle();
+    }
+
+    /**
+     * 取消消费事件
+     *
+     * @param scrollerFinished 滚动是否已经结束，已经结束的话请求进入空闲状态
+     * @return true-取消成功，false-当前没有消费事件
+     */
+    public boolean cancelConsume(boolean scrollerFinished)
+    {
+        if (!mTagConsume)
+            return false;
+
+        mIsCancelConsumeEvent = true;
+
+        if (scrollerFinished)
+        {
+            /**
+             * 调用取消消费事件方法之后，外部有可能立即调用滚动的方法变更状态为{@link #STATE_FLING}
+             * 所以此处延迟设置{@link #STATE_IDLE}状态
+             */
+            requestIdle();
+        }
+
+        resetTags();
+        return true;
+    }
+
+    /**
+     * 手势结束，重置生命周期信息，如果处于{@link #STATE_CONSUME}状态则进入{@link #STATE_IDLE}状态
+     * <br>
+     * 调用此方法之前需要先调用{@link #resetTags()}
+     */
+    public void finishGesture()
+    {
+        mHasConsumeEvent = false;
+        mIsCancelConsumeEvent = false;
+
+        if (mState == STATE_CONSUME)
+            setState(STATE_IDLE);
+    }
+
+    public interface Listener
+    {
+        /**
+         * 状态变化
+         *
+         * @param oldState
+         * @param newState
+         */
+        void onStateChanged(int oldState, int newState);
+
+        void onTagInterceptChanged(boolean tag);
+
+        void onTagConsumeChanged(boolean tag);
+
+        /**
+         * 请求延迟进入空闲状态，需要在稍后调用{@link #commitIdle()}
+         */
+        void onIdleRequest();
+
+        /**
+         * 延迟进入空闲状态的请求被取消
+         */
+        void onIdleCancel();
+    }
+}
@@ -0,0 +1,349 @@
+package com.sd.lib.gesture.core;
+
+/**
+ * 触摸历史，固定容量的环形缓冲区保存带时间的坐标
+ * <br>
+ * 每个采样点同时保存从手势开始累计的路径长度和转向角度，
+ * 按时间窗口查询的时候二分查找窗口起点，位移、路径长度、平均速度和转向角度都只需要读取两端的采样点
+ */
+public class TouchHistory
+{
+    private final int mCapacity;
+    private final int mMask;
+
+    private final long[] mTime;
+    private final float[] mX;
+    private final float[] mY;
+    /**
+     * 从手势开始累计的路径长度
+     */
+    private final double[] mPathLength;
+    /**
+     * 从手势开始累计的转向角度(度)，每一段的方向和上一段方向夹角的绝对值之和
+     */
+    private final double[] mTurning;
+
+    /**
+     * 最旧的采样点的物理位置
+     */
+    private int mHead;
+    private int mCount;
+
+    private boolean mHasHeading;
+    private double mLastHeading;
+    private float mPeakSpeed;
+
+    public TouchHistory()
+    {
+        this(64);
+    }
+
+    /**
+     * @param capacity 最多保存的采样点数量，会向上取整为2的幂
+     */
+    public TouchHistory(int capacity)
+    {
+        if (capacity < 2)
+            throw new IllegalArgumentException("capacity must >= 2");
+
+        int size = 2;
+        while (size < capacity)
+        {
+            size <<= 1;
+        }
+
+        mCapacity = size;
+        mMask = size - 1;
+        mTime = new long[size];
+        mX = new float[size];
+        mY = new float[size];
+        mPathLength = new double[size];
+        mTurning = new double[size];
+    }
+
+    /**
+     * 清空历史
+     */
+    public void reset()
+    {
+        mHead = 0;
+        mCount = 0;
+        mHasHeading = false;
+        mLastHeading = 0;
+        mPeakSpeed = 0;
+    }
+
+    /**
+     * 复制另一个历史的所有采样点和统计信息
+     *
+     * @param other 容量需要和当前对象一致
+     */
+    public void copyFrom(TouchHistory other)
+    {
+        if (other == this)
+            return;
+        if (other.mCapacity != mCapacity)
+            throw new IllegalArgumentException("capacity must be the same");
+
+        System.arraycopy(other.mTime, 0, mTime, 0, mCapacity);
+        System.arraycopy(other.mX, 0, mX, 0, mCapacity);
+        System.arraycopy(other.mY, 0, mY, 0, mCapacity);
+        System.arraycopy(other.mPathLength, 0, mPathLength, 0, mCapacity);
+        System.arraycopy(other.mTurning, 0, mTurning, 0, mCapacity);
+
+        mHead = other.mHead;
+        mCount = other.mCount;
+        mHasHeading = other.mHasHeading;
+        mLastHeading = other.mLastHeading;
+        mPeakSpeed = other.mPeakSpeed;
+    }
+
+    /**
+     * 添加采样点，时间比最新的采样点早的会被忽略，时间相同的会替换最新的采样点
+     *
+     * @param time 时间(毫秒)
+     * @param x
+     * @param y
+     */
+    public void add(long time, float x, float y)
+    {
+        if (mCount > 0)
+        {
+            final int last = physical(mCount - 1);
+            final long lastTime = mTime[last];
+            if (time < lastTime)
+                return;
+
+            if (time == lastTime)
+            {
+                if (mX[last] == x && mY[last] == y)
+                    return;
+
+                if (mCount == 1)
+                {
+                    mX[last] = x;
+                    mY[last] = y;
+                    return;
+                }
+
+                // 同一时间的采样点，撤销最新的采样点后重新添加
+                mCount--;
+                mHasHeading = mCount > 1;
+                if (mHasHeading)
+                {
+                    final int prev = physical(mCount - 1);
+                    final int prevPrev = physical(mCount - 2);
+                    mLastHeading = Math.atan2(mY[prev] - mY[prevPrev], mX[prev] - mX[prevPrev]);
+                }
+            }
+        }
+
+        double pathLength = 0;
+        double turning = 0;
+        if (mCount > 0)
+        {
+            final int prev = physical(mCount - 1);
+            final float dx = x - mX[prev];
+            final float dy = y - mY[prev];
+            final double distance = Math.sqrt(dx * dx + dy * dy);
+
+            pathLength = mPathLength[prev] + distance;
+            turning = mTurning[prev];
+
+            if (distance > 0)
+            {
+                final double heading = Math.atan2(dy, dx);
+                if (mHasHeading)
+                {
+                    double delta = Math.abs(heading - mLastHeading);
+                    if (delta > Math.PI)
+                        delta = 2 * Math.PI - delta;
+                    turning += Math.toDegrees(delta);
+                }
+                mLastHeading = heading;
+                mHasHeading = true;
+
+                final long dt = time - mTime[prev];
+                if (dt > 0)
+                {
+                    final float speed = (float) (distance * 1000 / dt);
+                    if (speed > mPeakSpeed)
+                        mPeakSpeed = speed;
+                }
+            }
+        }
+
+        final int index;
+        if (mCount == mCapacity)
+        {
+            index = mHead;
+            mHead = (mHead + 1) & mMask;
+        } else
+        {
+            index = physical(mCount);
+            mCount++;
+        }
+
+        mTime[index] = time;
+        mX[index] = x;
+        mY[index] = y;
+        mPathLength[index] = pathLength;
+        mTurning[index] = turning;
+    }
+
+    /**
+     * 返回保存的采样点数量
+     *
+     * @return
+     */
+    public int size()
+    {
+        return mCount;
+    }
+
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * 返回某个采样点的时间
+     *
+     * @param index 0-最旧的采样点
+     * @return
+     */
+    public long getTime(int index)
+    {
+        return mTime[checkedPhysical(index)];
+    }
+
+    public float getX(int index)
+    {
+        return mX[checkedPhysical(index)];
+    }
+
+    public float getY(int index)
+    {
+        return mY[checkedPhysical(index)];
+    }
+
+    /**
+     * 返回本次手势的最大速度(像素/秒)，不受容量限制
+     *
+     * @return
+     */
+    public float getPeakSpeed()
+    {
+        return mPeakSpeed;
+    }
+
+    /**
+     * 返回时间窗口内x方向的位移
+     *
+     * @param window 从最新的采样点往前的时间(毫秒)
+     * @return
+     */
+    public float getDisplacementX(long window)
+    {
+        if (mCount == 0)
+            return 0;
+        return mX[physical(mCount - 1)] - mX[physical(findWindowStart(window))];
+    }
+
+    /**
+     * 返回时间窗口内y方向的位移
+     *
+     * @param window 从最新的采样点往前的时间(毫秒)
+     * @return
+     */
+    public float getDisplacementY(long window)
+    {
+        if (mCount == 0)
+            return 0;
+        return mY[physical(mCount - 1)] - mY[physical(findWindowStart(window))];
+    }
+
+    /**
+     * 返回时间窗口内的路径长度
+     *
+     * @param window 从最新的采样点往前的时间(毫秒)
+     * @return
+     */
+    public float getPathLength(long window)
+    {
+        if (mCount == 0)
+            return 0;
+        return (float) (mPathLength[physical(mCount - 1)] - mPathLength[physical(findWindowStart(window))]);
+    }
+
+    /**
+     * 返回时间窗口内的平均速度(像素/秒)，按照路径长度计算
+     *
+     * @param window 从最新的采样点往前的时间(毫秒)
+     * @return
+     */
+    public float getAverageSpeed(long window)
+    {
+        if (mCount < 2)
+            return 0;
+
+        final int last = physical(mCount - 1);
+        final int start = physical(findWindowStart(window));
+        final long duration = mTime[last] - mTime[start];
+        if (duration <= 0)
+            return 0;
+
+        return (float) ((mPathLength[last] - mPathLength[start]) * 1000 / duration);
+    }
+
+    /**
+     * 返回时间窗口内的转向角度(度)，即每一段移动方向变化的绝对值之和，直线为0，画一个圆约为360
+     *
+     * @param window 从最新的采样点往前的时间(毫秒)
+     * @return
+     */
+    public float getDirectionChange(long window)
+    {
+        if (mCount < 3)
+            return 0;
+
+        // 窗口内第一段的方向变化发生在第二个采样点
+        final int startIndex = Math.min(findWindowStart(window) + 1, mCount - 1);
+        return (float) (mTurning[physical(mCount - 1)] - mTurning[physical(startIndex)]);
+    }
+
+    /**
+     * 二分查找时间窗口内最旧的采样点
+     *
+     * @param window
+     * @return 逻辑位置，窗口超出保存的历史时返回0
+     */
+    private int findWindowStart(long window)
+    {
+        final long startTime = mTime[physical(mCount - 1)] - Math.max(0, window);
+
+        int low = 0;
+        int high = mCount - 1;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (mTime[physical(mid)] < startTime)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private int physical(int index)
+    {
+        return (mHead + index) & mMask;
+    }
+
+    private int checkedPhysical(int index)
+    {
+        if (index < 0 || index >= mCount)
+            throw new IndexOutOfBoundsException();
+        return physical(index);
+    }
+}
@@ -0,0 +1,181 @@
+package com.sd.lib.gesture.core;
+
+/**
+ * 触摸坐标记录，保存按下、上一次和当前的坐标，以及本次手势带时间的历史坐标{@link TouchHistory}
+ */
+public class TouchTracker
+{
+    private float mCurrentX;
+    private float mCurrentY;
+
+    private float mLastX;
+    private float mLastY;
+
+    private float mDownX;
+    private float mDownY;
+
+    private final TouchHistory mHistory = new TouchHistory();
+
+    /**
+     * 处理事件，同时记录历史，按下的时候会清空之前的历史
+     *
+     * @param action {@link GestureEvent#ACTION_DOWN}等
+     * @param time   事件时间(毫秒)
+     * @param x
+     * @param y
+     */
+    public void onEvent(int action, long time, float x, float y)
+    {
+        if (action == GestureEvent.ACTION_DOWN)
+            mHistory.reset();
+
+        onEvent(action, x, y);
+        mHistory.add(time, x, y);
+    }
+
+    /**
+     * 处理事件，不记录历史
+     *
+     * @param action {@link GestureEvent#ACTION_DOWN}等
+     * @param x
+     * @param y
+     */
+    public void onEvent(int action, float x, float y)
+    {
+        mLastX = mCurrentX;
+        mLastY = mCurrentY;
+
+        mCurrentX = x;
+        mCurrentY = y;
+
+        if (action == GestureEvent.ACTION_DOWN)
+        {
+            mDownX = x;
+            mDownY = y;
+        }
+    }
+
+    /**
+     * 重置所有坐标
+     */
+    public void reset()
+    {
+        mCurrentX = 0;
+        mCurrentY = 0;
+        mLastX = 0;
+        mLastY = 0;
+        mDownX = 0;
+        mDownY = 0;
+        mHistory.reset();
+    }
+
+    /**
+     * 复制另一个对象的所有坐标和历史，用于把进行中的手势交给另一个对象继续处理
+     *
+     * @param other
+     */
+    public void copyFrom(TouchTracker other)
+    {
+        if (other == this)
+            return;
+
+        mCurrentX = other.mCurrentX;
+        mCurrentY = other.mCurrentY;
+        mLastX = other.mLastX;
+        mLastY = other.mLastY;
+        mDownX = other.mDownX;
+        mDownY = other.mDownY;
+        mHistory.copyFrom(other.mHistory);
+    }
+
+    /**
+     * 设置上一次和当前的坐标
+     */
+    public void setPosition(float lastX, float lastY, float currentX, float currentY)
+    {
+        mLastX = lastX;
+        mLastY = lastY;
+        mCurrentX = currentX;
+        mCurrentY = currentY;
+    }
+
+    /**
+     * 返回历史坐标
+     *
+     * @return
+     */
+    public TouchHistory getHistory()
+    {
+        return mHistory;
+    }
+
+    public float getCurrentX()
+    {
+        return mCurrentX;
+    }
+
+    public float getCurrentY()
+    {
+        return mCurrentY;
+    }
+
+    public float getLastX()
+    {
+        return mLastX;
+    }
+
+    public float getLastY()
+    {
+        return mLastY;
+    }
+
+    public float getDownX()
+    {
+        return mDownX;
+    }
+
+    public float getDownY()
+    {
+        return mDownY;
+    }
+
+    public float getDeltaX()
+    {
+        return mCurrentX - mLastX;
+    }
+
+    public float getDeltaY()
+    {
+        return mCurrentY - mLastY;
+    }
+
+    public float getDeltaXFromDown()
+    {
+        return mCurrentX - mDownX;
+    }
+
+    public float getDeltaYFromDown()
+    {
+        return mCurrentY - mDownY;
+    }
+
+    public double getDegreeX()
+    {
+        return GestureMath.getDegree(getDeltaX(), getDeltaY());
+    }
+
+    public double getDegreeY()
+    {
+        return GestureMath.getDegree(getDeltaY(), getDeltaX());
+    }
+
+    public double getDegreeXFromDown()
+    {
+        return GestureMath.getDegree(getDeltaXFromDown(), getDeltaYFromDown());
+    }
+
+    public double getDegreeYFromDown()
+    {
+        return GestureMath.getDegree(getDeltaYFromDown(), getDeltaXFromDown());
+    }
+}
@@ -0,0 +1,69 @@
+package com.sd.lib.gesture.core;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.fail;
+
+/**
+ * 统计当前线程创建对象的字节数，使用HotSpot的线程内存分配计数
+ * <br>
+ * 虚拟机不支持统计或者统计结果不可信的时候直接让测试失败，不会因为统计不到而通过
+ */
+final class AllocationCounter
+{
+    private static volatile Object sSink;
+
+    private final com.sun.management.ThreadMXBean mBean;
+    private final long mThreadId;
+    /**
+     * 读取计数本身创建的字节数
+     */
+    private long mOverhead;
+    private long mStart;
+
+    AllocationCounter()
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            fail("allocation counting is not supported by this JVM");
+
+        mBean = (com.sun.management.ThreadMXBean) bean;
+        if (!mBean.isThreadAllocatedMemorySupported())
+            fail("allocation counting is not supported by this JVM");
+        if (!mBean.isThreadAllocatedMemoryEnabled())
+            mBean.setThreadAllocatedMemoryEnabled(true);
+
+        mThreadId = Thread.currentThread().getId();
+
+        // 取多次空统计的最小值作为统计本身的开销
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++)
+        {
+            begin();
+            overhead = Math.min(overhead, mBean.getThreadAllocatedBytes(mThreadId) - mStart);
+        }
+        mOverhead = overhead;
+
+        // 确认确实可以统计到创建的对象
+        begin();
+        sSink = new byte[1024];
+        if (end() < 1024)
+            fail("allocation counting does not observe allocations");
+        sSink = null;
+    }
+
+    void begin()
+    {
+        mStart = mBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * 返回从{@link #begin()}到现在创建的字节数
+     *
+     * @return
+     */
+    long end()
+    {
+        return mBean.getThreadAllocatedBytes(mThreadId) - mStart - mOverhead;
+    }
+}
@@ -0,0 +1,151 @@
+package com.sd.lib.gesture.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+
+/**
+ * 直接调用core中的类，检查每个事件在core中的处理都没有创建对象
+ * <br>
+ * 这里不经过平台层，事件和状态机的调用顺序只是一个典型的手势，
+ * 真实分发路径的检查在lib模块的FGestureAllocationUnitTest中
+ */
+public class CoreAllocationTest
+{
+    /**
+     * 允许创建对象的事件动作，按位保存。core中的事件处理不允许创建任何对象，所以为空
+     */
+    private static final int ALLOWED_ACTIONS = 0;
+
+    private static final int WARM_UP_GESTURES = 5;
+    private static final int GESTURES = 20;
+    private static final int MOVES_PER_GESTURE = 100;
+
+    private GestureStateMachine mMachine;
+    private TouchTracker mTracker;
+    private int mPosition;
+
+    @Before
+    public void setUp()
+    {
+        mMachine = new GestureStateMachine(new GestureStateMachine.Listener()
+        {
+            @Override
+            public void onStateChanged(int oldState, int newState)
+            {
+            }
+
+            @Override
+            public void onTagInterceptChanged(boolean tag)
+            {
+            }
+
+            @Override
+            public void onTagConsumeChanged(boolean tag)
+            {
+            }
+
+            @Override
+            public void onIdleRequest()
+            {
+            }
+
+            @Override
+            public void onIdleCancel()
+            {
+            }
+        });
+        mTracker = new TouchTracker();
+    }
+
+    @Test
+    public void testNoAllocationPerEvent()
+    {
+        final AllocationCounter counter = new AllocationCounter();
+
+        long time = 0;
+        for (int i = 0; i < WARM_UP_GESTURES; i++)
+        {
+            time = runGesture(null, time);
+        }
+        runGesture(counter, time);
+    }
+
+    /**
+     * 执行多次手势
+     *
+     * @param counter null-不统计
+     */
+    private long runGesture(AllocationCounter counter, long time)
+    {
+        int index = 0;
+        for (int g = 0; g < GESTURES; g++)
+        {
+            checkEvent(counter, index++, GestureEvent.ACTION_DOWN, time, 0, 0);
+            for (int i = 1; i <= MOVES_PER_GESTURE; i++)
+            {
+                time += 8;
+                checkEvent(counter, index++, GestureEvent.ACTION_MOVE, time, i * 0.5f, i * 3.7f);
+            }
+            time += 8;
+            checkEvent(counter, index++, GestureEvent.ACTION_UP, time, MOVES_PER_GESTURE * 0.5f, MOVES_PER_GESTURE * 3.7f);
+            time += 100;
+        }
+        return time;
+    }
+
+    private void checkEvent(AllocationCounter counter, int index, int action, long time, float x, float y)
+    {
+        if (counter == null)
+        {
+            dispatch(action, time, x, y);
+            return;
+        }
+
+        counter.begin();
+        dispatch(action, time, x, y);
+        final long bytes = counter.end();
+
+        if (bytes > 0 && (ALLOWED_ACTIONS & (1 << action)) == 0)
+            fail("event " + index + " (action " + action + ") allocated " + bytes + " bytes");
+    }
+
+    /**
+     * 按下之后开始拦截和消费，抬起的时候开始并结束一次滚动
+     */
+    private void dispatch(int action, long time, float x, float y)
+    {
+        mTracker.onEvent(action, time, x, y);
+
+        if (GestureEvent.isFinishAction(action))
+        {
+            mMachine.resetTags();
+            mMachine.onScrollerStart();
+            mMachine.finishGesture();
+            mMachine.onScrollerFinish();
+            mMachine.commitIdle();
+            mPosition += GestureMath.computeDuration(0, mPosition, 1000, 400, 200);
+            return;
+        }
+
+        if (action == GestureEvent.ACTION_DOWN)
+            return;
+
+        if (!mMachine.isTagIntercept())
+            mMachine.setTagIntercept(mTracker.getDegreeY() < 30);
+
+        if (!mMachine.isTagConsume())
+        {
+            mMachine.setTagConsume(true);
+        } else
+        {
+            final TouchHistory history = mTracker.getHistory();
+            final int delta = (int) mTracker.getDeltaY();
+            mPosition += GestureMath.getResistedDelta(mPosition, 0, 1000, delta, 100);
+            mPosition += GestureMath.getLegalDelta(mPosition, 0, 1000, (int) history.getDisplacementY(50));
+            mPosition += (int) (history.getAverageSpeed(80) + history.getDirectionChange(80) + history.getPathLength(100));
+            mMachine.setHasConsumeEvent(true);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sd.lib.gesture.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GestureMathTest
+{
+    @Test
+    public void testGetDegree()
+    {
+        assertEquals(0, GestureMath.getDegree(0, 10), 0);
+        assertEquals(0, GestureMath.getDegree(10, 0), 0);
+        assertEquals(45, GestureMath.getDegree(-10, 10), 1e-6);
+    }
+
+    @Test
+    public void testGetLegalDelta()
+    {
+        assertEquals(0, GestureMath.getLegalDelta(50, 0, 100, 0));
+        assertEquals(30, GestureMath.getLegalDelta(50, 0, 100, 30));
+        assertEquals(50, GestureMath.getLegalDelta(50, 0, 100, 80));
+        assertEquals(-50, GestureMath.getLegalDelta(50, 0, 100, -80));
+        // 已经越界的时候往回拉到范围内
+        assertEquals(-10, GestureMath.getLegalDelta(110, 0, 100, 5));
+    }
+
+    @Test
+    public void testGetResistedDeltaInRange()
+    {
+        assertEquals(0, GestureMath.getResistedDelta(50, 0, 100, 0, 40));
+        assertEquals(30, GestureMath.getResistedDelta(50, 0, 100, 30, 40));
+        // 不允许越界的时候和getLegalDelta一致
+        assertEquals(50, GestureMath.getResistedDelta(50, 0, 100, 80, 0));
+    }
+
+    @Test
+    public void testGetResistedDeltaOverScroll()
+    {
+        final int maxOverScroll = 40;
+
+        // 越界的部分有阻力
+        final int delta = GestureMath.getResistedDelta(100, 0, 100, 20, maxOverScroll);
+        assertTrue(delta > 0 && delta < 20);
+
+        // 越往外阻力越大，并且不会超过最大越界距离
+        int current = 100;
+        int lastStep = Integer.MAX_VALUE;
+        for (int i = 0; i < 50; i++)
+        {
+            final int step = GestureMath.getResistedDelta(current, 0, 100, 20, maxOverScroll);
+            assertTrue(step <= lastStep);
+            lastStep = step;
+            current += step;
+        }
+        assertTrue(current > 100 && current < 100 + maxOverScroll);
+
+        // 往回拉的时候回到范围内的部分没有阻力
+        final int back = GestureMath.getResistedDelta(current, 0, 100, -1000, maxOverScroll);
+        assertTrue(current + back < 0 && current + back > -maxOverScroll);
+    }
+
+    @Test
+    public void testGetResistedDeltaLowerBound()
+    {
+        final int delta = GestureMath.getResistedDelta(0, 0, 100, -20, 40);
+        assertTrue(delta < 0 && delta > -20);
+    }
+
+    @Test
+    public void testComputeDuration()
+    {
+        assertEquals(200, GestureMath.computeDuration(0, 0, 0, 400, 200));
+        assertEquals(0, GestureMath.computeDuration(0, 0, 1000, 400, 200));
+        assertEquals(300, GestureMath.computeDuration(300, 400, 1000, 400, 200));
+        assertEquals(400, GestureMath.computeDuration(0, 2000, 1000, 400, 200));
+        // 负数取绝对值
+        assertEquals(300, GestureMath.computeDuration(-500, 0, -1000, -400, -200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testComputeDurationIllegal()
+    {
+        GestureMath.computeDuration(10, 0, 1000, 100, 200);
+    }
+}
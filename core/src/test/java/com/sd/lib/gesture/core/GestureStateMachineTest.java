@@ -0,0 +1,209 @@
+package com.sd.lib.gesture.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GestureStateMachineTest
+{
+    private StringBuilder mLog;
+    private GestureStateMachine mMachine;
+
+    @Before
+    public void setUp()
+    {
+        mLog = new StringBuilder();
+        mMachine = new GestureStateMachine(new GestureStateMachine.Listener()
+        {
+            @Override
+            public void onStateChanged(int oldState, int newState)
+            {
+                mLog.append("state:").append(oldState).append("->").append(newState).append(';');
+            }
+
+            @Override
+            public void onTagInterceptChanged(boolean tag)
+            {
+                mLog.append("intercept:").append(tag).append(';');
+            }
+
+            @Override
+            public void onTagConsumeChanged(boolean tag)
+            {
+                mLog.append("consume:").append(tag).append(';');
+            }
+
+            @Override
+            public void onIdleRequest()
+            {
+                mLog.append("idleRequest;");
+            }
+
+            @Override
+            public void onIdleCancel()
+            {
+                mLog.append("idleCancel;");
+            }
+        });
+    }
+
+    private String takeLog()
+    {
+        final String log = mLog.toString();
+        mLog.setLength(0);
+        return log;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullListener()
+    {
+        new GestureStateMachine(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalState()
+    {
+        mMachine.setState(3);
+    }
+
+    @Test
+    public void testTagConsumeEntersConsume()
+    {
+        mMachine.setTagConsume(true);
+        assertEquals(GestureStateMachine.STATE_CONSUME, mMachine.getState());
+        assertEquals("state:0->1;consume:true;", takeLog());
+
+        // 重复设置不会回调
+        mMachine.setTagConsume(true);
+        assertEquals("", takeLog());
+    }
+
+    @Test
+    public void testConsumeFlingDeferredIdle()
+    {
+        mMachine.setTagConsume(true);
+        mMachine.setHasConsumeEvent(true);
+        takeLog();
+
+        // 松手后开始滚动
+        mMachine.resetTags();
+        mMachine.onScrollerStart();
+        mMachine.finishGesture();
+        assertEquals(GestureStateMachine.STATE_FLING, mMachine.getState());
+        assertFalse(mMachine.hasConsumeEvent());
+        assertEquals("consume:false;state:1->2;", takeLog());
+
+        // 滚动结束后延迟进入空闲状态
+        mMachine.onScrollerFinish();
+        assertEquals(GestureStateMachine.STATE_FLING, mMachine.getState());
+        assertTrue(mMachine.isIdlePending());
+        assertEquals("idleRequest;", takeLog());
+
+        assertTrue(mMachine.commitIdle());
+        assertEquals(GestureStateMachine.STATE_IDLE, mMachine.getState());
+        assertFalse(mMachine.isIdlePending());
+        assertEquals("state:2->0;", takeLog());
+
+        assertFalse(mMachine.commitIdle());
+        assertEquals("", takeLog());
+    }
+
+    @Test
+    public void testScrollerFinishWhileConsuming()
+    {
+        mMachine.setTagConsume(true);
+        mMachine.onScrollerStart();
+        takeLog();
+
+        // 还在消费事件的时候滚动结束，回到消费状态
+        mMachine.onScrollerFinish();
+        assertEquals(GestureStateMachine.STATE_CONSUME, mMachine.getState());
+        assertFalse(mMachine.isIdlePending());
+        assertEquals("state:2->1;", takeLog());
+    }
+
+    @Test
+    public void testIdleCancelledBySetState()
+    {
+        mMachine.onScrollerStart();
+        mMachine.onScrollerFinish();
+        takeLog();
+
+        // 等待空闲的时候又开始滚动
+        mMachine.onScrollerStart();
+        assertFalse(mMachine.isIdlePending());
+        assertEquals(GestureStateMachine.STATE_FLING, mMachine.getState());
+        assertEquals("idleCancel;", takeLog());
+
+        assertFalse(mMachine.commitIdle());
+    }
+
+    @Test
+    public void testCancelConsumeScrollerFinished()
+    {
+        mMachine.setTagIntercept(true);
+        mMachine.setTagConsume(true);
+        takeLog();
+
+        assertTrue(mMachine.cancelConsume(true));
+        assertTrue(mMachine.isCancelConsumeEvent());
+        assertFalse(mMachine.isTagIntercept());
+        assertFalse(mMachine.isTagConsume());
+        assertTrue(mMachine.isIdlePending());
+        // 状态延迟进入空闲
+        assertEquals(GestureStateMachine.STATE_CONSUME, mMachine.getState());
+        assertEquals("idleRequest;intercept:false;consume:false;", takeLog());
+
+        // 没有消费的时候取消无效
+        assertFalse(mMachine.cancelConsume(true));
+        assertEquals("", takeLog());
+    }
+
+    @Test
+    public void testCancelConsumeScrollerRunning()
+    {
+        mMachine.setTagConsume(true);
+        mMachine.onScrollerStart();
+        takeLog();
+
+        assertTrue(mMachine.cancelConsume(false));
+        assertFalse(mMachine.isIdlePending());
+        assertEquals(GestureStateMachine.STATE_FLING, mMachine.getState());
+        assertEquals("consume:false;", takeLog());
+
+        mMachine.onScrollerFinish();
+        assertTrue(mMachine.commitIdle());
+        assertEquals(GestureStateMachine.STATE_IDLE, mMachine.getState());
+    }
+
+    @Test
+    public void testFinishGesture()
+    {
+        mMachine.setTagConsume(true);
+        mMachine.setHasConsumeEvent(true);
+        mMachine.cancelConsume(true);
+        takeLog();
+
+        mMachine.finishGesture();
+        assertFalse(mMachine.hasConsumeEvent());
+        assertFalse(mMachine.isCancelConsumeEvent());
+        // 消费状态直接进入空闲，同时取消等待中的空闲请求
+        assertEquals(GestureStateMachine.STATE_IDLE, mMachine.getState());
+        assertFalse(mMachine.isIdlePending());
+        assertEquals("idleCancel;state:1->0;", takeLog());
+    }
+
+    @Test
+    public void testFinishGestureKeepsFling()
+    {
+        mMachine.onScrollerStart();
+        takeLog();
+
+        mMachine.finishGesture();
+        assertEquals(GestureStateMachine.STATE_FLING, mMachine.getState());
+        assertEquals("", takeLog());
+    }
+}
@@ -0,0 +1,146 @@
+package com.sd.lib.gesture.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchHistoryTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity()
+    {
+        new TouchHistory(1);
+    }
+
+    @Test
+    public void testCapacityRoundUp()
+    {
+        assertEquals(8, new TouchHistory(5).getCapacity());
+        assertEquals(64, new TouchHistory().getCapacity());
+    }
+
+    @Test
+    public void testSameTimeReplacesLatest()
+    {
+        final TouchHistory history = new TouchHistory(8);
+        history.add(0, 0, 0);
+        history.add(10, 10, 0);
+        history.add(10, 20, 0);
+
+        assertEquals(2, history.size());
+        assertEquals(20, history.getX(1), 0);
+        assertEquals(20, history.getPathLength(Long.MAX_VALUE), 1e-4);
+
+        // 同时间同坐标忽略，更早的时间忽略
+        history.add(10, 20, 0);
+        history.add(5, 100, 0);
+        assertEquals(2, history.size());
+        assertEquals(20, history.getPathLength(Long.MAX_VALUE), 1e-4);
+    }
+
+    @Test
+    public void testSameTimeReplacesFirst()
+    {
+        final TouchHistory history = new TouchHistory(8);
+        history.add(0, 0, 0);
+        history.add(0, 5, 5);
+
+        assertEquals(1, history.size());
+        assertEquals(5, history.getX(0), 0);
+        assertEquals(5, history.getY(0), 0);
+    }
+
+    @Test
+    public void testSameTimeReplacementRestoresHeading()
+    {
+        final TouchHistory history = new TouchHistory(8);
+        history.add(0, 0, 0);
+        history.add(10, 10, 0);
+        history.add(20, 10, 10);
+        // 替换最新的点后，转向角度按照替换后的点重新计算
+        history.add(20, 20, 0);
+
+        assertEquals(3, history.size());
+        assertEquals(0, history.getDirectionChange(Long.MAX_VALUE), 1e-4);
+    }
+
+    @Test
+    public void testWindowSearch()
+    {
+        final TouchHistory history = new TouchHistory(16);
+        for (int i = 0; i <= 10; i++)
+        {
+            history.add(i * 10, i * 5, 0);
+        }
+
+        // 最新的点时间为100，窗口起点为最早的不早于100 - window的点
+        assertEquals(0, history.getDisplacementX(0), 0);
+        assertEquals(10, history.getDisplacementX(20), 0);
+        assertEquals(10, history.getDisplacementX(25), 0);
+        assertEquals(15, history.getDisplacementX(30), 0);
+        assertEquals(50, history.getDisplacementX(1000), 0);
+        assertEquals(0, history.getDisplacementX(-1), 0);
+
+        assertEquals(15, history.getPathLength(30), 1e-4);
+        assertEquals(500, history.getAverageSpeed(30), 1e-3);
+    }
+
+    @Test
+    public void testWindowAfterOverwrite()
+    {
+        final TouchHistory history = new TouchHistory(4);
+        for (int i = 0; i < 10; i++)
+        {
+            history.add(i * 10, i, 0);
+        }
+
+        assertEquals(4, history.size());
+        assertEquals(60, history.getTime(0));
+        // 窗口超出保存的历史时从最旧的点开始
+        assertEquals(3, history.getDisplacementX(1000), 0);
+        // 最大速度不受容量限制
+        assertEquals(100, history.getPeakSpeed(), 1e-3);
+    }
+
+    @Test
+    public void testDirectionChange()
+    {
+        final TouchHistory history = new TouchHistory(8);
+        history.add(0, 0, 0);
+        history.add(10, 10, 0);
+        history.add(20, 10, 10);
+        history.add(30, 0, 10);
+
+        assertEquals(180, history.getDirectionChange(Long.MAX_VALUE), 1e-3);
+        // 窗口内只有最后一段，没有方向变化
+        assertEquals(0, history.getDirectionChange(10), 1e-3);
+    }
+
+    @Test
+    public void testCopyFrom()
+    {
+        final TouchHistory source = new TouchHistory(8);
+        source.add(0, 0, 0);
+        source.add(10, 3, 4);
+
+        final TouchHistory target = new TouchHistory(8);
+        target.add(0, 100, 100);
+        target.copyFrom(source);
+
+        assertEquals(2, target.size());
+        assertEquals(5, target.getPathLength(Long.MAX_VALUE), 1e-4);
+        assertEquals(source.getPeakSpeed(), target.getPeakSpeed(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyFromDifferentCapacity()
+    {
+        new TouchHistory(8).copyFrom(new TouchHistory(16));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds()
+    {
+        new TouchHistory(8).getX(0);
+    }
+}
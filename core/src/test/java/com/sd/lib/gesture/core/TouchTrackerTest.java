@@ -0,0 +1,52 @@
+package com.sd.lib.gesture.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchTrackerTest
+{
+    @Test
+    public void testDelta()
+    {
+        final TouchTracker tracker = new TouchTracker();
+        tracker.onEvent(GestureEvent.ACTION_DOWN, 0, 10, 20);
+        tracker.onEvent(GestureEvent.ACTION_MOVE, 10, 15, 30);
+        tracker.onEvent(GestureEvent.ACTION_MOVE, 20, 18, 50);
+
+        assertEquals(3, tracker.getDeltaX(), 0);
+        assertEquals(20, tracker.getDeltaY(), 0);
+        assertEquals(8, tracker.getDeltaXFromDown(), 0);
+        assertEquals(30, tracker.getDeltaYFromDown(), 0);
+        assertEquals(3, tracker.getHistory().size());
+    }
+
+    @Test
+    public void testDownResetsHistory()
+    {
+        final TouchTracker tracker = new TouchTracker();
+        tracker.onEvent(GestureEvent.ACTION_DOWN, 0, 0, 0);
+        tracker.onEvent(GestureEvent.ACTION_MOVE, 10, 10, 0);
+        tracker.onEvent(GestureEvent.ACTION_UP, 20, 20, 0);
+
+        tracker.onEvent(GestureEvent.ACTION_DOWN, 100, 50, 50);
+        assertEquals(1, tracker.getHistory().size());
+        assertEquals(50, tracker.getDownX(), 0);
+    }
+
+    @Test
+    public void testCopyFrom()
+    {
+        final TouchTracker source = new TouchTracker();
+        source.onEvent(GestureEvent.ACTION_DOWN, 0, 10, 10);
+        source.onEvent(GestureEvent.ACTION_MOVE, 10, 20, 30);
+
+        final TouchTracker target = new TouchTracker();
+        target.copyFrom(source);
+
+        assertEquals(10, target.getDownX(), 0);
+        assertEquals(10, target.getDeltaX(), 0);
+        assertEquals(20, target.getDeltaY(), 0);
+        assertEquals(2, target.getHistory().size());
+    }
+}
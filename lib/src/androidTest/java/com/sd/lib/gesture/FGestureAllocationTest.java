@@ -0,0 +1,117 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在设备上通过{@link FGestureReplayer}回放手势，使用{@link android.os.Debug}统计事件分发和滚动计算中创建的对象
+ * <br>
+ * Robolectric中统计不到对象创建，所以这个检查只能在设备上执行
+ */
+@RunWith(AndroidJUnit4.class)
+public class FGestureAllocationTest
+{
+    private static final int WARM_UP_COUNT = 3;
+
+    private Context mContext;
+
+    @Before
+    public void setUp()
+    {
+        mContext = InstrumentationRegistry.getTargetContext();
+    }
+
+    private static FGestureReplayer newReplayer(FGestureManager manager)
+    {
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        replayer.addSwipe(0, 0, 0, 0, 600, 50, 400);
+
+        // 允许创建对象的事件：按下的时候获取VelocityTracker
+        replayer.allowAllocation(MotionEvent.ACTION_DOWN);
+        return replayer;
+    }
+
+    @Test
+    public void testReplayDoesNotAllocate()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback());
+        final FGestureReplayer replayer = newReplayer(manager);
+
+        // 先回放几次完成延迟初始化
+        long baseTime = 1000;
+        for (int i = 0; i < WARM_UP_COUNT; i++)
+        {
+            replayer.replay(baseTime);
+            baseTime += 1000;
+        }
+
+        replayer.setAllocationTracking(true);
+        final FGestureReplayer.Report report = replayer.replay(baseTime);
+        assertTrue(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    @Test
+    public void testPooledReplayDoesNotAllocate()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback(), new FGesturePool(2));
+        final FGestureReplayer replayer = newReplayer(manager);
+
+        long baseTime = 1000;
+        for (int i = 0; i < WARM_UP_COUNT; i++)
+        {
+            replayer.replay(baseTime);
+            baseTime += 1000;
+        }
+
+        replayer.setAllocationTracking(true);
+        final FGestureReplayer.Report report = replayer.replay(baseTime);
+        assertTrue(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    private static class TestCallback extends FGestureManager.Callback
+    {
+        @Override
+        public boolean shouldInterceptEvent(MotionEvent event)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean shouldConsumeEvent(MotionEvent event)
+        {
+            return true;
+        }
+
+        @Override
+        public void onEventConsume(MotionEvent event)
+        {
+        }
+
+        @Override
+        public void onEventFinish(VelocityTracker velocityTracker, MotionEvent event)
+        {
+        }
+
+        @Override
+        public void onStateChanged(FGestureManager.State oldState, FGestureManager.State newState)
+        {
+        }
+
+        @Override
+        public void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+        {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * 动画时钟，纳秒精度
+ * <br>
+ * 默认使用系统时钟，测试的时候可以使用{@link Manual}手动控制时间
+ */
+public abstract class FAnimationClock
+{
+    /**
+     * 默认帧间隔，60Hz
+     */
+    public static final long DEFAULT_FRAME_PERIOD_NANOS = 1000000000L / 60;
+
+    private static FAnimationClock sSystem;
+
+    /**
+     * 返回当前时间(纳秒)
+     *
+     * @return
+     */
+    public abstract long nanoTime();
+
+    /**
+     * 返回系统时钟
+     *
+     * @return
+     */
+    public static synchronized FAnimationClock system()
+    {
+        if (sSystem == null)
+        {
+            sSystem = new FAnimationClock()
+            {
+                @Override
+                public long nanoTime()
+                {
+                    return System.nanoTime();
+                }
+            };
+        }
+        return sSystem;
+    }
+
+    /**
+     * 返回屏幕刷新的帧间隔(纳秒)
+     *
+     * @param context
+     * @return
+     */
+    public static long getFramePeriodNanos(Context context)
+    {
+        final WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager == null)
+            return DEFAULT_FRAME_PERIOD_NANOS;
+
+        final Display display = windowManager.getDefaultDisplay();
+        if (display == null)
+            return DEFAULT_FRAME_PERIOD_NANOS;
+
+        final float refreshRate = display.getRefreshRate();
+        if (refreshRate < 10)
+            return DEFAULT_FRAME_PERIOD_NANOS;
+
+        return (long) (1000000000L / refreshRate);
+    }
+
+    /**
+     * 手动控制的时钟，可以在没有屏幕的环境下按任意刷新率模拟动画
+     */
+    public static final class Manual extends FAnimationClock
+    {
+        private long mTime;
+        private long mFramePeriod;
+
+        /**
+         * @param framePeriod 帧间隔(纳秒)
+         */
+        public Manual(long framePeriod)
+        {
+            if (framePeriod <= 0)
+                throw new IllegalArgumentException("framePeriod must > 0");
+            mFramePeriod = framePeriod;
+        }
+
+        @Override
+        public long nanoTime()
+        {
+            return mTime;
+        }
+
+        public long getFramePeriod()
+        {
+            return mFramePeriod;
+        }
+
+        /**
+         * 设置当前时间(纳秒)
+         *
+         * @param time
+         */
+        public void setTime(long time)
+        {
+            mTime = time;
+        }
+
+        /**
+         * 时间前进指定的纳秒
+         *
+         * @param nanos
+         */
+        public void advance(long nanos)
+        {
+            mTime += nanos;
+        }
+
+        /**
+         * 时间前进一帧
+         */
+        public void advanceFrame()
+        {
+            mTime += mFramePeriod;
+        }
+    }
+}
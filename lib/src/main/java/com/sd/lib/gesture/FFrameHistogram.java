@@ -0,0 +1,181 @@
+package com.sd.lib.gesture;
+
+/**
+ * 帧间隔直方图，按照1毫秒一个桶统计，超过最大值的间隔统计在最后一个桶中
+ * <br>
+ * 记录的时候只修改基本类型数组，多个直方图可以通过{@link #merge(FFrameHistogram)}合并
+ */
+public final class FFrameHistogram
+{
+    /**
+     * 桶的数量，第i个桶统计[i, i+1)毫秒的间隔，最后一个桶统计大于等于{@link #BUCKET_COUNT} - 1毫秒的间隔
+     */
+    public static final int BUCKET_COUNT = 128;
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+    private int mCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+
+    private int mJankCount;
+    private int mDroppedFrames;
+
+    /**
+     * 记录一个帧间隔
+     *
+     * @param intervalNanos    帧间隔(纳秒)
+     * @param framePeriodNanos 屏幕刷新的帧间隔(纳秒)，用来计算丢掉的帧数
+     */
+    public void record(long intervalNanos, long framePeriodNanos)
+    {
+        if (intervalNanos < 0)
+            throw new IllegalArgumentException("intervalNanos must >= 0");
+        if (framePeriodNanos <= 0)
+            throw new IllegalArgumentException("framePeriodNanos must > 0");
+
+        final long bucket = intervalNanos / NANOS_PER_MILLI;
+        mCounts[(int) Math.min(bucket, BUCKET_COUNT - 1)]++;
+        mCount++;
+        mTotalNanos += intervalNanos;
+        if (intervalNanos > mMaxNanos)
+            mMaxNanos = intervalNanos;
+
+        // 按照四舍五入计算这个间隔跨过了多少帧
+        final long dropped = (intervalNanos + framePeriodNanos / 2) / framePeriodNanos - 1;
+        if (dropped > 0)
+        {
+            mJankCount++;
+            mDroppedFrames += (int) dropped;
+        }
+    }
+
+    /**
+     * 把另一个直方图的数据合并到当前直方图
+     *
+     * @param other
+     */
+    public void merge(FFrameHistogram other)
+    {
+        if (other == null)
+            throw new NullPointerException();
+        if (other == this)
+            throw new IllegalArgumentException("other must not be this");
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            mCounts[i] += other.mCounts[i];
+        }
+        mCount += other.mCount;
+        mTotalNanos += other.mTotalNanos;
+        if (other.mMaxNanos > mMaxNanos)
+            mMaxNanos = other.mMaxNanos;
+
+        mJankCount += other.mJankCount;
+        mDroppedFrames += other.mDroppedFrames;
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            mCounts[i] = 0;
+        }
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+        mJankCount = 0;
+        mDroppedFrames = 0;
+    }
+
+    /**
+     * 返回记录的帧间隔数量
+     *
+     * @return
+     */
+    public int getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * 返回某个桶的数量
+     *
+     * @param index [0, {@link #BUCKET_COUNT})
+     * @return
+     */
+    public int getBucketCount(int index)
+    {
+        return mCounts[index];
+    }
+
+    /**
+     * 返回超过一帧的间隔数量
+     *
+     * @return
+     */
+    public int getJankCount()
+    {
+        return mJankCount;
+    }
+
+    /**
+     * 返回丢掉的总帧数
+     *
+     * @return
+     */
+    public int getDroppedFrames()
+    {
+        return mDroppedFrames;
+    }
+
+    /**
+     * 返回平均帧间隔(毫秒)
+     *
+     * @return
+     */
+    public float getAverageInterval()
+    {
+        if (mCount == 0)
+            return 0;
+        return (float) mTotalNanos / mCount / NANOS_PER_MILLI;
+    }
+
+    /**
+     * 返回最大帧间隔(毫秒)
+     *
+     * @return
+     */
+    public float getMaxInterval()
+    {
+        return (float) mMaxNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * 返回百分位的帧间隔(毫秒)，精度为1毫秒，返回的是所在桶的上界，落在最后一个桶的时候返回最大帧间隔
+     *
+     * @param percent (0, 100]，例如50，90，99
+     * @return 没有数据的时候返回0
+     */
+    public float getPercentile(float percent)
+    {
+        if (percent <= 0 || percent > 100)
+            throw new IllegalArgumentException("percent must in (0, 100]");
+        if (mCount == 0)
+            return 0;
+
+        final long target = (long) Math.ceil(mCount * percent / 100d);
+        long sum = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++)
+        {
+            sum += mCounts[i];
+            if (sum >= target)
+                return Math.min(i + 1, getMaxInterval());
+        }
+        return getMaxInterval();
+    }
+}
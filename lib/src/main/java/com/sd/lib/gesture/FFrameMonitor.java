@@ -0,0 +1,141 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+
+/**
+ * 滚动动画帧监控，记录{@link FScroller#computeScrollOffset()}相邻两次调用的间隔
+ * <br>
+ * 每次动画的数据统计在{@link #getAnimation()}中，动画结束的时候合并到{@link #getTotal()}，
+ * 通过{@link FScroller#setFrameMonitor(FFrameMonitor)}或者{@link FGestureManager#setFrameMonitor(FFrameMonitor)}设置
+ */
+public class FFrameMonitor
+{
+    private final long mFramePeriodNanos;
+
+    private final FFrameHistogram mAnimation = new FFrameHistogram();
+    private final FFrameHistogram mTotal = new FFrameHistogram();
+
+    private boolean mRunning;
+    private long mLastFrameTime;
+    private int mAnimationCount;
+
+    private Callback mCallback;
+
+    /**
+     * 使用屏幕的刷新频率
+     *
+     * @param context
+     */
+    public FFrameMonitor(Context context)
+    {
+        this(FAnimationClock.getFramePeriodNanos(context));
+    }
+
+    /**
+     * @param framePeriodNanos 屏幕刷新的帧间隔(纳秒)
+     */
+    public FFrameMonitor(long framePeriodNanos)
+    {
+        if (framePeriodNanos <= 0)
+            throw new IllegalArgumentException("framePeriodNanos must > 0");
+        mFramePeriodNanos = framePeriodNanos;
+    }
+
+    public void setCallback(Callback callback)
+    {
+        mCallback = callback;
+    }
+
+    public long getFramePeriodNanos()
+    {
+        return mFramePeriodNanos;
+    }
+
+    /**
+     * 返回当前或者最近一次动画的直方图
+     *
+     * @return
+     */
+    public FFrameHistogram getAnimation()
+    {
+        return mAnimation;
+    }
+
+    /**
+     * 返回所有已经结束的动画合并后的直方图
+     *
+     * @return
+     */
+    public FFrameHistogram getTotal()
+    {
+        return mTotal;
+    }
+
+    /**
+     * 返回已经结束的动画数量
+     *
+     * @return
+     */
+    public int getAnimationCount()
+    {
+        return mAnimationCount;
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void reset()
+    {
+        mAnimation.reset();
+        mTotal.reset();
+        mAnimationCount = 0;
+        mLastFrameTime = -1;
+    }
+
+    void onAnimationStart()
+    {
+        mAnimation.reset();
+        mRunning = true;
+        mLastFrameTime = -1;
+    }
+
+    void onFrame(long nanoTime)
+    {
+        if (!mRunning)
+            return;
+
+        if (mLastFrameTime >= 0)
+        {
+            final long interval = nanoTime - mLastFrameTime;
+            // 同一帧内的多次调用不算作新的一帧
+            if (interval < mFramePeriodNanos / 4)
+                return;
+            mAnimation.record(interval, mFramePeriodNanos);
+        }
+        mLastFrameTime = nanoTime;
+    }
+
+    void onAnimationFinish()
+    {
+        if (!mRunning)
+            return;
+
+        mRunning = false;
+        mTotal.merge(mAnimation);
+        mAnimationCount++;
+
+        if (mCallback != null)
+            mCallback.onAnimationFinish(this, mAnimation);
+    }
+
+    public interface Callback
+    {
+        /**
+         * 一次动画结束
+         *
+         * @param monitor
+         * @param animation 本次动画的直方图，下一次动画开始的时候会被清空
+         */
+        void onAnimationFinish(FFrameMonitor monitor, FFrameHistogram animation);
+    }
+}
@@ -0,0 +1,174 @@
+package com.sd.lib.gesture;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 手势事件日志，固定容量的环形缓冲区，写满后覆盖最早的记录
+ * <br>
+ * 所有记录都保存在基本类型数组中，写入的时候不会创建对象
+ */
+public class FGestureJournal
+{
+    /**
+     * 记录来自{@link FGestureManager#onInterceptTouchEvent(android.view.MotionEvent)}
+     */
+    public static final int TYPE_INTERCEPT = 1;
+    /**
+     * 记录来自{@link FGestureManager#onTouchEvent(android.view.MotionEvent)}
+     */
+    public static final int TYPE_TOUCH = 2;
+
+    public static final int FLAG_INTERCEPT = 1;
+    public static final int FLAG_CONSUME = 1 << 1;
+    public static final int FLAG_RESULT = 1 << 2;
+
+    private static final int BINARY_VERSION = 1;
+
+    private final long[] mTime;
+    private final byte[] mType;
+    private final byte[] mAction;
+    private final float[] mX;
+    private final float[] mY;
+    private final byte[] mStateBefore;
+    private final byte[] mStateAfter;
+    private final byte[] mFlags;
+
+    private int mNext;
+    private int mSize;
+
+    public FGestureJournal(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must > 0");
+
+        mTime = new long[capacity];
+        mType = new byte[capacity];
+        mAction = new byte[capacity];
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mStateBefore = new byte[capacity];
+        mStateAfter = new byte[capacity];
+        mFlags = new byte[capacity];
+    }
+
+    public int getCapacity()
+    {
+        return mTime.length;
+    }
+
+    /**
+     * 返回当前保存的记录数量
+     *
+     * @return
+     */
+    public synchronized int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @param time        事件时间
+     * @param type        {@link #TYPE_INTERCEPT}或者{@link #TYPE_TOUCH}
+     * @param action      事件action
+     * @param x
+     * @param y
+     * @param stateBefore 处理前的状态{@link FGestureManager.State#ordinal()}
+     * @param stateAfter  处理后的状态{@link FGestureManager.State#ordinal()}
+     * @param flags       {@link #FLAG_INTERCEPT}等
+     */
+    public synchronized void write(long time, int type, int action, float x, float y, int stateBefore, int stateAfter, int flags)
+    {
+        final int index = mNext;
+        mTime[index] = time;
+        mType[index] = (byte) type;
+        mAction[index] = (byte) action;
+        mX[index] = x;
+        mY[index] = y;
+        mStateBefore[index] = (byte) stateBefore;
+        mStateAfter[index] = (byte) stateAfter;
+        mFlags[index] = (byte) flags;
+
+        mNext = (index + 1) % mTime.length;
+        if (mSize < mTime.length)
+            mSize++;
+    }
+
+    /**
+     * 清空记录
+     */
+    public synchronized void clear()
+    {
+        mNext = 0;
+        mSize = 0;
+    }
+
+    private int indexOf(int position)
+    {
+        return (mNext - mSize + position + mTime.length) % mTime.length;
+    }
+
+    /**
+     * 以文本形式导出所有记录，按时间从早到晚排列
+     *
+     * @param builder
+     */
+    public synchronized void dump(StringBuilder builder)
+    {
+        final FGestureManager.State[] states = FGestureManager.State.values();
+        for (int i = 0; i < mSize; i++)
+        {
+            final int index = indexOf(i);
+            final int flags = mFlags[index];
+
+            builder.append(mTime[index])
+                    .append(mType[index] == TYPE_INTERCEPT ? " intercept " : " touch ")
+                    .append(mAction[index])
+                    .append(" (").append(mX[index]).append(',').append(mY[index]).append(") ")
+                    .append(states[mStateBefore[index]]).append(" -> ").append(states[mStateAfter[index]])
+                    .append(" intercept:").append((flags & FLAG_INTERCEPT) != 0)
+                    .append(" consume:").append((flags & FLAG_CONSUME) != 0)
+                    .append(" result:").append((flags & FLAG_RESULT) != 0)
+                    .append('\n');
+        }
+    }
+
+    /**
+     * 以二进制形式导出所有记录，按时间从早到晚排列
+     * <br>
+     * 格式：版本号(int)，记录数量(int)，每条记录依次为time(long)，type(byte)，action(byte)，x(float)，y(float)，stateBefore(byte)，stateAfter(byte)，flags(byte)
+     *
+     * @param outputStream
+     * @throws IOException
+     */
+    public synchronized void writeTo(OutputStream outputStream) throws IOException
+    {
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(BINARY_VERSION);
+        output.writeInt(mSize);
+        for (int i = 0; i < mSize; i++)
+        {
+            final int index = indexOf(i);
+            output.writeLong(mTime[index]);
+            output.writeByte(mType[index]);
+            output.writeByte(mAction[index]);
+            output.writeFloat(mX[index]);
+            output.writeFloat(mY[index]);
+            output.writeByte(mStateBefore[index]);
+            output.writeByte(mStateAfter[index]);
+            output.writeByte(mFlags[index]);
+        }
+        output.flush();
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder builder = new StringBuilder();
+        dump(builder);
+        return builder.toString();
+    }
+}
@@ -1,81 +1,284 @@
 package com.sd.lib.gesture;
 
+import android.content.Context;
+import android.os.Build;
 import android.util.Log;
+import android.view.InputDevice;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 
+import com.sd.lib.gesture.core.GestureEvent;
+import com.sd.lib.gesture.core.GestureStateMachine;
+import com.sd.lib.gesture.core.TouchHistory;
+
+import java.util.Arrays;
+
 public class FGestureManager
 {
+    public static final int EDGE_LEFT = 1;
+    public static final int EDGE_TOP = 1 << 1;
+    public static final int EDGE_RIGHT = 1 << 2;
+    public static final int EDGE_BOTTOM = 1 << 3;
+
     private final ViewGroup mViewGroup;
 
     private FTouchHelper mTouchHelper;
     private final TagHolder mTagHolder;
-    private final FScroller mScroller;
+    private GestureScroller mScroller;
+
+    private static final State[] STATES = State.values();
 
-    private State mState = State.Idle;
+    private final GestureStateMachine mMachine;
     private LifecycleInfo mLifecycleInfo;
 
-    private final IdleRunnable mIdleRunnable = new IdleRunnable();
+    private IdleRunnable mIdleRunnable;
     private VelocityTracker mVelocityTracker;
 
+    private final FGesturePool mPool;
+
     private boolean mDebug;
+    private FGestureJournal mJournal;
+    private FGestureSummary.Listener mSummaryListener;
+    private FGestureSummary mSummary;
+    private FFrameMonitor mFrameMonitor;
+
+    /**
+     * 最近一次处理的事件标识，用来避免同一个事件在onInterceptTouchEvent和onTouchEvent中被处理两次
+     */
+    private long mLastEventTime = -1;
+    private long mLastEventDownTime = -1;
+    private int mLastEventAction = -1;
+    /**
+     * 从其他对象接收了手势，需要在下一个事件把历史坐标补充到速率计算对象中
+     */
+    private boolean mVelocityReplayPending;
+
+    /**
+     * 边缘区域大小(dp)，按照left, top, right, bottom排列
+     */
+    private final float[] mEdgeSizeDp = new float[4];
+    private int mEdgeMask;
+    /**
+     * 编译后的边缘区域边界(px)，例如左边区域为[0, mEdgeLeft)
+     */
+    private int mEdgeLeft;
+    private int mEdgeTop;
+    private int mEdgeRight;
+    private int mEdgeBottom;
+    private boolean mEdgeDirty;
+    /**
+     * 换算边缘区域时使用的屏幕密度，密度变化后需要重新换算
+     */
+    private float mEdgeDensity;
+    private View.OnLayoutChangeListener mEdgeLayoutListener;
+
+    private boolean mConsumeCoalesce;
+    private MotionEvent mPendingConsumeEvent;
+    private float mPendingConsumeStartX;
+    private float mPendingConsumeStartY;
+    private Runnable mConsumeFrameRunnable;
+
+    private float mWheelScrollFactor;
+    private int mWheelScrollDuration = 150;
+    /**
+     * 当前帧累计的滚轮滚动距离
+     */
+    private float mPendingWheelX;
+    private float mPendingWheelY;
+    private boolean mWheelScheduled;
+    private Runnable mWheelFrameRunnable;
+    /**
+     * 当前滚轮滚动的目标位置，Scroller正在执行滚轮滚动的时候有效
+     */
+    private int mWheelTargetX;
+    private int mWheelTargetY;
+    private boolean mWheelScrolling;
 
     private final Callback mCallback;
 
+    /**
+     * 观察者数组，修改的时候复制一个新的数组，分发的时候按下标遍历
+     */
+    private StateObserver[] mStateObservers = new StateObserver[0];
+    private ScrollerObserver[] mScrollerObservers = new ScrollerObserver[0];
+
     public FGestureManager(ViewGroup viewGroup, Callback callback)
+    {
+        this(viewGroup, callback, null);
+    }
+
+    /**
+     * 共享模式，滚动对象和触摸帮助对象在{@link MotionEvent#ACTION_DOWN}的时候从pool中租借，在{@link State#Idle}的时候归还
+     * <br>
+     * 适用于列表中大量的item，只有正在触摸的item才持有这些对象。
+     * 注意：归还的时候滚动对象的参数会被重置，所以滚动参数需要在每次滚动之前设置
+     *
+     * @param viewGroup
+     * @param callback
+     * @param pool      null-不共享，每个对象各自持有
+     */
+    public FGestureManager(ViewGroup viewGroup, Callback callback, FGesturePool pool)
     {
         if (viewGroup == null || callback == null)
             throw new NullPointerException();
 
         mViewGroup = viewGroup;
         mCallback = callback;
+        mPool = pool;
 
-        mTagHolder = new TagHolder()
+        mMachine = new GestureStateMachine(new GestureStateMachine.Listener()
         {
             @Override
-            protected void onTagConsumeChanged(boolean tag)
+            public void onStateChanged(int oldState, int newState)
             {
-                if (tag)
-                    setState(State.Consume);
+                if (mDebug)
+                    Log.i(FGestureManager.class.getSimpleName(), "setState:" + STATES[oldState] + " -> " + STATES[newState]);
+
+                final State oldValue = STATES[oldState];
+                final State newValue = STATES[newState];
+                mCallback.onStateChanged(oldValue, newValue);
 
-                super.onTagConsumeChanged(tag);
+                final StateObserver[] observers = mStateObservers;
+                for (int i = 0; i < observers.length; i++)
+                {
+                    observers[i].onStateChanged(oldValue, newValue);
+                }
+
+                if (newState == GestureStateMachine.STATE_IDLE)
+                    releasePooledComponents();
             }
-        };
 
-        mScroller = new FScroller(viewGroup.getContext())
-        {
             @Override
-            protected void onScrollerStart()
+            public void onTagInterceptChanged(boolean tag)
             {
-                setState(State.Fling);
-                super.onScrollerStart();
+                if (tag && mSummary != null)
+                    mSummary.onIntercept();
+                mTagHolder.onTagInterceptChanged(tag);
             }
 
             @Override
-            protected void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+            public void onTagConsumeChanged(boolean tag)
             {
-                mCallback.onScrollerCompute(lastX, lastY, currX, currY);
-                super.onScrollerCompute(lastX, lastY, currX, currY);
+                if (tag && mSummary != null)
+                    mSummary.onConsume();
+                mTagHolder.onTagConsumeChanged(tag);
             }
 
             @Override
-            protected void onScrollerFinish(boolean isAbort)
+            public void onIdleRequest()
             {
-                if (mDebug)
-                    Log.e(FGestureManager.class.getSimpleName(), "onScrollerFinish isAbort:" + isAbort);
+                getIdleRunnable().post();
+            }
 
-                if (mTagHolder.isTagConsume())
-                {
-                    setState(State.Consume);
-                } else
-                {
-                    mIdleRunnable.post();
-                }
+            @Override
+            public void onIdleCancel()
+            {
+                if (mIdleRunnable != null)
+                    mIdleRunnable.cancel();
+            }
+        });
+        mTagHolder = new TagHolder(mMachine);
+
+        if (pool == null)
+        {
+            mScroller = new GestureScroller(viewGroup.getContext());
+            mScroller.mOwner = this;
+            mIdleRunnable = new IdleRunnable();
+        }
+    }
+
+    private void onScrollerStart()
+    {
+        mMachine.onScrollerStart();
+    }
+
+    private void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+    {
+        mCallback.onScrollerCompute(lastX, lastY, currX, currY);
+
+        final ScrollerObserver[] observers = mScrollerObservers;
+        for (int i = 0; i < observers.length; i++)
+        {
+            observers[i].onScrollerCompute(lastX, lastY, currX, currY);
+        }
+    }
 
-                super.onScrollerFinish(isAbort);
+    private void onScrollerFinish(boolean isAbort)
+    {
+        if (mDebug)
+            Log.e(FGestureManager.class.getSimpleName(), "onScrollerFinish isAbort:" + isAbort);
+
+        mWheelScrolling = false;
+        mMachine.onScrollerFinish();
+    }
+
+    /**
+     * 添加状态变化观察者，在{@link Callback#onStateChanged(State, State)}之后按照添加的顺序通知
+     *
+     * @param observer
+     */
+    public void addStateObserver(StateObserver observer)
+    {
+        mStateObservers = appendObserver(mStateObservers, observer);
+    }
+
+    public void removeStateObserver(StateObserver observer)
+    {
+        mStateObservers = removeObserver(mStateObservers, observer);
+    }
+
+    /**
+     * 添加滚动观察者，在{@link Callback#onScrollerCompute(int, int, int, int)}之后按照添加的顺序通知
+     *
+     * @param observer
+     */
+    public void addScrollerObserver(ScrollerObserver observer)
+    {
+        mScrollerObservers = appendObserver(mScrollerObservers, observer);
+    }
+
+    public void removeScrollerObserver(ScrollerObserver observer)
+    {
+        mScrollerObservers = removeObserver(mScrollerObservers, observer);
+    }
+
+    /**
+     * 返回添加了观察者的新数组，观察者已经存在的话返回原数组
+     */
+    static <T> T[] appendObserver(T[] observers, T observer)
+    {
+        if (observer == null)
+            throw new NullPointerException();
+
+        for (int i = 0; i < observers.length; i++)
+        {
+            if (observers[i] == observer)
+                return observers;
+        }
+
+        final T[] result = Arrays.copyOf(observers, observers.length + 1);
+        result[observers.length] = observer;
+        return result;
+    }
+
+    /**
+     * 返回移除了观察者的新数组，观察者不存在的话返回原数组
+     */
+    static <T> T[] removeObserver(T[] observers, T observer)
+    {
+        for (int i = 0; i < observers.length; i++)
+        {
+            if (observers[i] == observer)
+            {
+                final T[] result = Arrays.copyOf(observers, observers.length - 1);
+                System.arraycopy(observers, i + 1, result, i, observers.length - i - 1);
+                return result;
             }
-        };
+        }
+        return observers;
     }
 
     public void setDebug(boolean debug)
@@ -83,10 +286,207 @@ public class FGestureManager
         mDebug = debug;
     }
 
+    /**
+     * 设置事件日志，每次分发事件都会写入一条记录，null-不记录
+     *
+     * @param journal
+     */
+    public void setJournal(FGestureJournal journal)
+    {
+        mJournal = journal;
+    }
+
+    public FGestureJournal getJournal()
+    {
+        return mJournal;
+    }
+
+    /**
+     * 设置滚动动画的帧监控对象，记录{@link State#Fling}状态下每一帧的间隔，
+     * 每次动画的数据和所有动画合并后的数据可以通过{@link FFrameMonitor}获得
+     *
+     * @param monitor null-不监控
+     */
+    public void setFrameMonitor(FFrameMonitor monitor)
+    {
+        mFrameMonitor = monitor;
+        if (mScroller != null)
+            mScroller.setFrameMonitor(monitor);
+    }
+
+    public FFrameMonitor getFrameMonitor()
+    {
+        return mFrameMonitor;
+    }
+
+    /**
+     * 设置手势统计回调，每次手势结束的时候回调本次手势的{@link FGestureSummary}
+     * <br>
+     * 统计对象只创建一次，之后每次手势重复使用，null-停止统计
+     *
+     * @param listener
+     */
+    public void setSummaryListener(FGestureSummary.Listener listener)
+    {
+        mSummaryListener = listener;
+        if (listener == null)
+            mSummary = null;
+        else if (mSummary == null)
+            mSummary = new FGestureSummary();
+    }
+
+    /**
+     * 设置是否按帧合并{@link Callback#onEventConsume(MotionEvent)}回调，默认false
+     * <br>
+     * true-两帧之间的多个消费事件合并为一次回调，在下一帧回调最新的事件，
+     * 回调中{@link FTouchHelper#getDeltaX()}和{@link FTouchHelper#getDeltaY()}返回合并后的增量。
+     * 是否拦截和是否开始消费仍然在每个事件中实时判断
+     *
+     * @param coalesce
+     */
+    public void setConsumeCoalesceEnabled(boolean coalesce)
+    {
+        if (mConsumeCoalesce != coalesce)
+        {
+            mConsumeCoalesce = coalesce;
+            if (!coalesce)
+                flushConsumeEvent();
+        }
+    }
+
+    /**
+     * 设置滚轮每滚动一格对应的像素，小于等于0-使用系统的值
+     *
+     * @param factor
+     */
+    public void setWheelScrollFactor(float factor)
+    {
+        mWheelScrollFactor = factor;
+    }
+
+    /**
+     * 设置滚轮滚动的动画时长，每一帧的滚动会从当前位置重新开始这个时长的动画
+     *
+     * @param duration 毫秒
+     */
+    public void setWheelScrollDuration(int duration)
+    {
+        if (duration < 0)
+            throw new IllegalArgumentException("duration must >= 0");
+        mWheelScrollDuration = duration;
+    }
+
+    /**
+     * 设置边缘区域大小，设置之后只有在边缘区域内按下的手势才会触发{@link Callback#shouldInterceptEvent(MotionEvent)}和{@link Callback#shouldConsumeEvent(MotionEvent)}
+     * <br>
+     * 区域大小在布局变化的时候换算为像素，按下的时候根据相对于ViewGroup的坐标判断，命中的边缘可以通过{@link LifecycleInfo#getDownEdge()}获得
+     *
+     * @param edges {@link #EDGE_LEFT}等，可以组合
+     * @param dp    区域大小，0-关闭该边缘
+     */
+    public void setEdgeSize(int edges, float dp)
+    {
+        if (dp < 0)
+            throw new IllegalArgumentException("dp must >= 0");
+
+        int mask = 0;
+        for (int i = 0; i < mEdgeSizeDp.length; i++)
+        {
+            if ((edges & (1 << i)) != 0)
+                mEdgeSizeDp[i] = dp;
+
+            if (mEdgeSizeDp[i] > 0)
+                mask |= 1 << i;
+        }
+        mEdgeMask = mask;
+        mEdgeDirty = true;
+
+        if (mask != 0 && mEdgeLayoutListener == null)
+        {
+            mEdgeLayoutListener = new View.OnLayoutChangeListener()
+            {
+                @Override
+                public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom)
+                {
+                    if (mEdgeMask != 0 && (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop))
+                        compileEdgeZones();
+                }
+            };
+            mViewGroup.addOnLayoutChangeListener(mEdgeLayoutListener);
+        }
+    }
+
+    /**
+     * 返回某个边缘区域的大小(dp)
+     *
+     * @param edge {@link #EDGE_LEFT}等
+     * @return
+     */
+    public float getEdgeSize(int edge)
+    {
+        switch (edge)
+        {
+            case EDGE_LEFT:
+                return mEdgeSizeDp[0];
+            case EDGE_TOP:
+                return mEdgeSizeDp[1];
+            case EDGE_RIGHT:
+                return mEdgeSizeDp[2];
+            case EDGE_BOTTOM:
+                return mEdgeSizeDp[3];
+            default:
+                throw new IllegalArgumentException("Illegal edge:" + edge);
+        }
+    }
+
+    private void compileEdgeZones()
+    {
+        compileEdgeZones(mViewGroup.getResources().getDisplayMetrics().density);
+    }
+
+    private void compileEdgeZones(float density)
+    {
+        final int width = mViewGroup.getWidth();
+        final int height = mViewGroup.getHeight();
+
+        mEdgeLeft = (int) (mEdgeSizeDp[0] * density + 0.5f);
+        mEdgeTop = (int) (mEdgeSizeDp[1] * density + 0.5f);
+        mEdgeRight = width - (int) (mEdgeSizeDp[2] * density + 0.5f);
+        mEdgeBottom = height - (int) (mEdgeSizeDp[3] * density + 0.5f);
+        mEdgeDensity = density;
+        mEdgeDirty = false;
+    }
+
+    /**
+     * 返回坐标命中的边缘区域
+     *
+     * @param x 相对于ViewGroup的坐标
+     * @param y 相对于ViewGroup的坐标
+     * @return
+     */
+    private int findEdge(float x, float y)
+    {
+        final float density = mViewGroup.getResources().getDisplayMetrics().density;
+        if (mEdgeDirty || density != mEdgeDensity)
+            compileEdgeZones(density);
+
+        final int mask = mEdgeMask;
+        int edge = 0;
+        if ((mask & EDGE_LEFT) != 0 && x < mEdgeLeft)
+            edge |= EDGE_LEFT;
+        if ((mask & EDGE_TOP) != 0 && y < mEdgeTop)
+            edge |= EDGE_TOP;
+        if ((mask & EDGE_RIGHT) != 0 && x >= mEdgeRight)
+            edge |= EDGE_RIGHT;
+        if ((mask & EDGE_BOTTOM) != 0 && y >= mEdgeBottom)
+            edge |= EDGE_BOTTOM;
+        return edge;
+    }
+
     public FTouchHelper getTouchHelper()
     {
         if (mTouchHelper == null)
-            mTouchHelper = new FTouchHelper();
+            mTouchHelper = mPool == null ? new FTouchHelper() : mPool.obtainTouchHelper();
         return mTouchHelper;
     }
 
@@ -95,38 +495,110 @@ public class FGestureManager
         return mTagHolder;
     }
 
+    /**
+     * 返回滚动对象，共享模式下如果当前没有租借滚动对象，会立即租借一个
+     *
+     * @return
+     */
     public FScroller getScroller()
     {
+        if (mScroller == null)
+        {
+            mScroller = mPool.obtainScroller(mViewGroup.getContext());
+            mScroller.mOwner = this;
+            mScroller.setFrameMonitor(mFrameMonitor);
+        }
         return mScroller;
     }
 
+    /**
+     * 返回当前持有的触摸对象，不会创建或者租借新的对象，共享模式下手势结束后返回null
+     */
+    FTouchHelper peekTouchHelper()
+    {
+        return mTouchHelper;
+    }
+
+    /**
+     * 返回当前持有的滚动对象，不会创建或者租借新的对象，共享模式下空闲后返回null
+     */
+    FScroller peekScroller()
+    {
+        return mScroller;
+    }
+
+    /**
+     * 计算滚动，共享模式下如果当前没有租借滚动对象，直接返回false，不会租借新的对象
+     * <br>
+     * 可以在{@link ViewGroup#computeScroll()}中代替getScroller().computeScrollOffset()调用
+     *
+     * @return true-滚动中，false-滚动结束
+     */
+    public boolean computeScrollOffset()
+    {
+        if (mScroller == null)
+            return false;
+        return mScroller.computeScrollOffset();
+    }
+
+    /**
+     * 是否处于共享模式
+     *
+     * @return
+     */
+    public boolean isPooled()
+    {
+        return mPool != null;
+    }
+
     public State getState()
     {
-        return mState;
+        return STATES[mMachine.getState()];
     }
 
     public LifecycleInfo getLifecycleInfo()
     {
         if (mLifecycleInfo == null)
+        {
             mLifecycleInfo = new LifecycleInfo();
+            mLifecycleInfo.mMachine = mMachine;
+        }
         return mLifecycleInfo;
     }
 
-    private void setState(State state)
+    private IdleRunnable getIdleRunnable()
     {
-        if (state == null)
-            throw new NullPointerException();
+        if (mIdleRunnable == null)
+            mIdleRunnable = new IdleRunnable();
+        return mIdleRunnable;
+    }
 
-        if (mDebug)
-            Log.i(FGestureManager.class.getSimpleName(), "setState:" + mState + " -> " + state);
+    /**
+     * 共享模式下归还租借的对象
+     */
+    private void releasePooledComponents()
+    {
+        if (mPool == null)
+            return;
 
-        mIdleRunnable.cancel();
+        if (mVelocityTracker != null || mTagHolder.isTagIntercept() || mTagHolder.isTagConsume())
+        {
+            // 手势还未结束
+            return;
+        }
 
-        final State old = mState;
-        if (old != state)
+        if (mScroller != null && mScroller.isFinished())
         {
-            mState = state;
-            mCallback.onStateChanged(old, state);
+            mScroller.mOwner = null;
+            mScroller.setFrameMonitor(null);
+            mPool.recycleScroller(mScroller);
+            mScroller = null;
+        }
+
+        if (mTouchHelper != null)
+        {
+            mPool.recycleTouchHelper(mTouchHelper);
+            mTouchHelper = null;
         }
     }
 
@@ -156,19 +628,97 @@ public class FGestureManager
             if (mDebug)
                 Log.i(FGestureManager.class.getSimpleName(), "cancelConsumeEvent");
 
-            getLifecycleInfo().setCancelConsumeEvent(true);
+            discardConsumeEvent();
+            mMachine.cancelConsume(mScroller == null || mScroller.isFinished());
+            mCallback.onCancelConsumeEvent();
+        }
+    }
 
-            if (getScroller().isFinished())
-            {
-                /**
-                 * 调用取消消费事件方法之后，外部有可能立即调用滚动的方法变更状态为{@link State.Fling}
-                 * 所以此处延迟设置{@link State.Idle}状态
-                 */
-                mIdleRunnable.post();
-            }
+    /**
+     * 把进行中的手势交给另一个对象继续处理
+     * <br>
+     * 坐标、历史坐标、速率样本和生命周期信息会复制给target，target进入消费状态，下一个事件直接回调{@link Callback#onEventConsume(MotionEvent)}；
+     * 当前对象按照{@link #cancelConsumeEvent()}处理，并且忽略本次手势剩下的事件，直到下一次按下。
+     * <br>
+     * 如果target是当前对象的父容器，target的{@link #onInterceptTouchEvent(MotionEvent)}会在下一个事件返回true；
+     * 否则需要外部把后续事件分发给target的{@link #onTouchEvent(MotionEvent)}
+     *
+     * @param target
+     * @return true-交接成功，false-当前没有进行中的手势
+     */
+    public boolean transferGestureTo(FGestureManager target)
+    {
+        if (target == null)
+            throw new NullPointerException();
+        if (target == this)
+            throw new IllegalArgumentException("target must not be this");
+
+        if (mLastEventAction == -1 || GestureEvent.isFinishAction(mLastEventAction))
+            return false;
+
+        final LifecycleInfo info = getLifecycleInfo();
+        if (info.isTransferred())
+            return false;
+
+        if (mDebug)
+            Log.i(FGestureManager.class.getSimpleName(), "transferGestureTo:" + target);
+
+        final boolean hasConsumeEvent = info.hasConsumeEvent();
+        target.receiveGesture(this, info.getDownEdge(), hasConsumeEvent);
 
+        info.setTransferred(true);
+        if (mTagHolder.isTagConsume())
+            cancelConsumeEvent();
+        else
             mTagHolder.reset();
-            mCallback.onCancelConsumeEvent();
+        return true;
+    }
+
+    private void receiveGesture(FGestureManager source, int downEdge, boolean hasConsumeEvent)
+    {
+        discardConsumeEvent();
+
+        mLastEventTime = source.mLastEventTime;
+        mLastEventDownTime = source.mLastEventDownTime;
+        mLastEventAction = source.mLastEventAction;
+
+        getTouchHelper().copyFrom(source.getTouchHelper());
+        getVelocityTracker().clear();
+        mVelocityReplayPending = true;
+
+        final LifecycleInfo info = getLifecycleInfo();
+        info.reset();
+        info.setDownEdge(downEdge);
+        mMachine.setHasConsumeEvent(hasConsumeEvent);
+
+        if (mSummary != null && mSummary.getDownTime() != mLastEventDownTime)
+            mSummary.reset(mLastEventDownTime);
+
+        mTagHolder.setTagIntercept(true);
+        mTagHolder.setTagConsume(true);
+    }
+
+    /**
+     * 把接收到的历史坐标补充到速率计算对象中，历史坐标是相对屏幕的，按照当前事件换算为相对于事件的坐标
+     *
+     * @param event 接收手势之后的第一个事件，已经添加到历史坐标中
+     */
+    private void replayVelocity(MotionEvent event)
+    {
+        final float offsetX = event.getX() - event.getRawX();
+        final float offsetY = event.getY() - event.getRawY();
+        final long downTime = event.getDownTime();
+
+        final VelocityTracker tracker = getVelocityTracker();
+        final TouchHistory history = getTouchHelper().getHistory();
+        final int count = history.size() - 1;
+        for (int i = 0; i < count; i++)
+        {
+            final int action = i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE;
+            final MotionEvent sample = MotionEvent.obtain(downTime, history.getTime(i), action,
+                    history.getX(i) + offsetX, history.getY(i) + offsetY, 0);
+            tracker.addMovement(sample);
+            sample.recycle();
         }
     }
 
@@ -180,77 +730,395 @@ public class FGestureManager
      */
     public boolean onInterceptTouchEvent(MotionEvent event)
     {
-        getTouchHelper().processTouchEvent(event);
-        getVelocityTracker().addMovement(event);
+        FGestureTrace.begin(FGestureTrace.SECTION_INTERCEPT);
+        final int stateBefore = mMachine.getState();
+        try
+        {
+            ingestEvent(event);
 
-        final int action = event.getAction();
-        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+            final int action = event.getAction();
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+            {
+                onEventFinish(event);
+            } else
+            {
+                if (action == MotionEvent.ACTION_DOWN)
+                    onEventStart(event);
+
+                final LifecycleInfo info = getLifecycleInfo();
+                if (!mTagHolder.isTagIntercept() && !info.isEdgeMissed() && !info.isTransferred())
+                    mTagHolder.setTagIntercept(mCallback.shouldInterceptEvent(event));
+            }
+
+            final boolean result = mTagHolder.isTagIntercept();
+            writeJournal(FGestureJournal.TYPE_INTERCEPT, event, stateBefore, result);
+            return result;
+        } finally
         {
-            onEventFinish(event);
-        } else
+            FGestureTrace.end(FGestureTrace.SECTION_INTERCEPT);
+        }
+    }
+
+    /**
+     * 外部调用
+     *
+     * @param event
+     * @return
+     */
+    public boolean onTouchEvent(MotionEvent event)
+    {
+        FGestureTrace.begin(FGestureTrace.SECTION_TOUCH);
+        final int stateBefore = mMachine.getState();
+        try
         {
-            if (action == MotionEvent.ACTION_DOWN)
+            ingestEvent(event);
+
+            final int action = event.getAction();
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+            {
+                onEventFinish(event);
+            } else if (action == MotionEvent.ACTION_DOWN)
+            {
                 onEventStart(event);
+                final boolean result = mCallback.onEventActionDown(event);
+                writeJournal(FGestureJournal.TYPE_TOUCH, event, stateBefore, result);
+                return result;
+            } else
+            {
+                final LifecycleInfo info = getLifecycleInfo();
+                if (!info.isCancelConsumeEvent() && !info.isEdgeMissed() && !info.isTransferred())
+                {
+                    if (!mTagHolder.isTagConsume())
+                    {
+                        mTagHolder.setTagConsume(mCallback.shouldConsumeEvent(event));
+                    } else
+                    {
+                        if (mConsumeCoalesce)
+                        {
+                            pendConsumeEvent(event);
+                        } else
+                        {
+                            FGestureTrace.begin(FGestureTrace.SECTION_CONSUME);
+                            try
+                            {
+                                mCallback.onEventConsume(event);
+                            } finally
+                            {
+                                FGestureTrace.end(FGestureTrace.SECTION_CONSUME);
+                            }
+                        }
+                        mMachine.setHasConsumeEvent(true);
+                    }
+                }
+            }
 
-            if (!mTagHolder.isTagIntercept())
-                mTagHolder.setTagIntercept(mCallback.shouldInterceptEvent(event));
+            final boolean result = mTagHolder.isTagConsume();
+            writeJournal(FGestureJournal.TYPE_TOUCH, event, stateBefore, result);
+            return result;
+        } finally
+        {
+            FGestureTrace.end(FGestureTrace.SECTION_TOUCH);
         }
-
-        return mTagHolder.isTagIntercept();
     }
 
     /**
-     * 外部调用
+     * 外部调用，处理鼠标滚轮和触控板的{@link MotionEvent#ACTION_SCROLL}事件
+     * <br>
+     * {@link Callback#shouldConsumeScrollEvent(MotionEvent)}返回true之后，同一帧内的滚动距离会被累加，
+     * 在下一帧通过{@link FScroller}滚动，如果上一次滚轮滚动还未结束，则从当前位置重新滚动到累加后的目标位置，
+     * 如果正在执行的是其他滚动(例如惯性滚动)，则先停止它再开始滚轮滚动，
+     * 滚动距离通过{@link Callback#onScrollerCompute(int, int, int, int)}回调，方向和手指拖动内容的方向一致
      *
      * @param event
      * @return
      */
-    public boolean onTouchEvent(MotionEvent event)
+    public boolean onGenericMotionEvent(MotionEvent event)
     {
-        getTouchHelper().processTouchEvent(event);
-        getVelocityTracker().addMovement(event);
+        if (event.getActionMasked() != MotionEvent.ACTION_SCROLL)
+            return false;
+        if (!event.isFromSource(InputDevice.SOURCE_CLASS_POINTER))
+            return false;
+        if (mTagHolder.isTagConsume())
+            return false;
 
-        final int action = event.getAction();
-        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+        // 向下滚动内容向上移动，向右滚动内容向左移动
+        final float dx = -event.getAxisValue(MotionEvent.AXIS_HSCROLL);
+        final float dy = event.getAxisValue(MotionEvent.AXIS_VSCROLL);
+        if (dx == 0 && dy == 0)
+            return false;
+
+        if (!mCallback.shouldConsumeScrollEvent(event))
+            return false;
+
+        mPendingWheelX += dx * getWheelScrollFactor(false);
+        mPendingWheelY += dy * getWheelScrollFactor(true);
+
+        if (!mWheelScheduled)
         {
-            onEventFinish(event);
-        } else if (action == MotionEvent.ACTION_DOWN)
+            mWheelScheduled = true;
+            if (mWheelFrameRunnable == null)
+            {
+                mWheelFrameRunnable = new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        flushWheelScroll();
+                    }
+                };
+            }
+
+            if (Build.VERSION.SDK_INT >= 16)
+                mViewGroup.postOnAnimation(mWheelFrameRunnable);
+            else
+                mViewGroup.post(mWheelFrameRunnable);
+        }
+        return true;
+    }
+
+    private float getWheelScrollFactor(boolean vertical)
+    {
+        if (mWheelScrollFactor > 0)
+            return mWheelScrollFactor;
+
+        if (Build.VERSION.SDK_INT >= 26)
+        {
+            final ViewConfiguration configuration = ViewConfiguration.get(mViewGroup.getContext());
+            return vertical ? configuration.getScaledVerticalScrollFactor() : configuration.getScaledHorizontalScrollFactor();
+        }
+
+        // 不保存到mWheelScrollFactor，它只保存外部设置的值，这里每次按照当前的密度计算
+        return 64 * mViewGroup.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * 把当前帧累计的滚轮滚动距离提交给Scroller，不足1像素的部分保留到下一帧
+     */
+    private void flushWheelScroll()
+    {
+        mWheelScheduled = false;
+
+        final int dx = (int) mPendingWheelX;
+        final int dy = (int) mPendingWheelY;
+        mPendingWheelX -= dx;
+        mPendingWheelY -= dy;
+        if (dx == 0 && dy == 0)
+            return;
+
+        final FScroller scroller = getScroller();
+        final int startX;
+        final int startY;
+        if (mWheelScrolling && !scroller.isFinished())
         {
-            onEventStart(event);
-            return mCallback.onEventActionDown(event);
+            // 保留上一次还未滚动完的距离
+            startX = scroller.getCurrX();
+            startY = scroller.getCurrY();
+            mWheelTargetX += dx;
+            mWheelTargetY += dy;
         } else
         {
-            if (!getLifecycleInfo().isCancelConsumeEvent())
+            // 正在执行其他滚动(例如惯性滚动)的时候先停止，让状态和观察者收到结束通知，再开始新的滚轮滚动
+            if (!scroller.isFinished())
+                scroller.abortAnimation();
+
+            startX = 0;
+            startY = 0;
+            mWheelTargetX = dx;
+            mWheelTargetY = dy;
+        }
+
+        if (scroller.scrollTo(startX, startY, mWheelTargetX, mWheelTargetY, mWheelScrollDuration))
+        {
+            mWheelScrolling = true;
+            mViewGroup.invalidate();
+        }
+    }
+
+    /**
+     * 处理事件坐标和速率，同一个事件只处理一次
+     *
+     * @param event
+     */
+    private void ingestEvent(MotionEvent event)
+    {
+        final long eventTime = event.getEventTime();
+        final long downTime = event.getDownTime();
+        final int action = event.getAction();
+        if (eventTime == mLastEventTime && downTime == mLastEventDownTime && action == mLastEventAction)
+            return;
+
+        mLastEventTime = eventTime;
+        mLastEventDownTime = downTime;
+        mLastEventAction = action;
+
+        final FTouchHelper touchHelper = getTouchHelper();
+        touchHelper.processTouchEvent(event);
+
+        final FGestureSummary summary = mSummary;
+        if (summary != null)
+        {
+            if (action == MotionEvent.ACTION_DOWN)
+                summary.reset(downTime);
+            summary.onEvent(eventTime, touchHelper.getCurrentX(), touchHelper.getCurrentY());
+        }
+
+        if (mVelocityReplayPending)
+        {
+            mVelocityReplayPending = false;
+            if (action != MotionEvent.ACTION_DOWN)
+                replayVelocity(event);
+        }
+        getVelocityTracker().addMovement(event);
+    }
+
+    private void writeJournal(int type, MotionEvent event, int stateBefore, boolean result)
+    {
+        final FGestureJournal journal = mJournal;
+        if (journal == null)
+            return;
+
+        int flags = 0;
+        if (mTagHolder.isTagIntercept())
+            flags |= FGestureJournal.FLAG_INTERCEPT;
+        if (mTagHolder.isTagConsume())
+            flags |= FGestureJournal.FLAG_CONSUME;
+        if (result)
+            flags |= FGestureJournal.FLAG_RESULT;
+
+        journal.write(event.getEventTime(), type, event.getActionMasked(),
+                event.getRawX(), event.getRawY(),
+                stateBefore, mMachine.getState(), flags);
+    }
+
+    private void onEventStart(MotionEvent event)
+    {
+        // 交出手势之后没有收到结束事件的情况下，新的手势重新开始处理
+        getLifecycleInfo().setTransferred(false);
+
+        if (mEdgeMask != 0)
+        {
+            final int edge = findEdge(event.getX(), event.getY());
+            final LifecycleInfo info = getLifecycleInfo();
+            info.setDownEdge(edge);
+            info.setEdgeMissed(edge == 0);
+        }
+    }
+
+    private void pendConsumeEvent(MotionEvent event)
+    {
+        if (mPendingConsumeEvent == null)
+        {
+            final FTouchHelper touchHelper = getTouchHelper();
+            mPendingConsumeStartX = touchHelper.getLastX();
+            mPendingConsumeStartY = touchHelper.getLastY();
+
+            if (mConsumeFrameRunnable == null)
             {
-                if (!mTagHolder.isTagConsume())
+                mConsumeFrameRunnable = new Runnable()
                 {
-                    mTagHolder.setTagConsume(mCallback.shouldConsumeEvent(event));
-                } else
-                {
-                    mCallback.onEventConsume(event);
-                    getLifecycleInfo().setHasConsumeEvent(true);
-                }
+                    @Override
+                    public void run()
+                    {
+                        flushConsumeEvent();
+                    }
+                };
             }
+
+            if (Build.VERSION.SDK_INT >= 16)
+                mViewGroup.postOnAnimation(mConsumeFrameRunnable);
+            else
+                mViewGroup.post(mConsumeFrameRunnable);
+        } else
+        {
+            mPendingConsumeEvent.recycle();
         }
 
-        return mTagHolder.isTagConsume();
+        mPendingConsumeEvent = MotionEvent.obtain(event);
     }
 
-    private void onEventStart(MotionEvent event)
+    /**
+     * 回调合并后的消费事件
+     */
+    private void flushConsumeEvent()
     {
+        final MotionEvent event = mPendingConsumeEvent;
+        if (event == null)
+            return;
+
+        mPendingConsumeEvent = null;
+        mViewGroup.removeCallbacks(mConsumeFrameRunnable);
+
+        // 临时把坐标设置为合并后的值，回调结束后恢复
+        final FTouchHelper touchHelper = getTouchHelper();
+        final float lastX = touchHelper.getLastX();
+        final float lastY = touchHelper.getLastY();
+        final float currentX = touchHelper.getCurrentX();
+        final float currentY = touchHelper.getCurrentY();
+        touchHelper.setPosition(mPendingConsumeStartX, mPendingConsumeStartY, event.getRawX(), event.getRawY());
+
+        FGestureTrace.begin(FGestureTrace.SECTION_CONSUME);
+        try
+        {
+            mCallback.onEventConsume(event);
+        } finally
+        {
+            FGestureTrace.end(FGestureTrace.SECTION_CONSUME);
+            touchHelper.setPosition(lastX, lastY, currentX, currentY);
+            event.recycle();
+        }
+    }
 
+    private void discardConsumeEvent()
+    {
+        if (mPendingConsumeEvent != null)
+        {
+            mPendingConsumeEvent.recycle();
+            mPendingConsumeEvent = null;
+            mViewGroup.removeCallbacks(mConsumeFrameRunnable);
+        }
     }
 
     private void onEventFinish(MotionEvent event)
     {
+        flushConsumeEvent();
         mTagHolder.reset();
-        mCallback.onEventFinish(getVelocityTracker(), event);
+
+        FGestureTrace.begin(FGestureTrace.SECTION_FINISH);
+        try
+        {
+            mCallback.onEventFinish(getVelocityTracker(), event);
+        } finally
+        {
+            FGestureTrace.end(FGestureTrace.SECTION_FINISH);
+        }
+
+        final FGestureSummary summary = mSummary;
+        if (summary != null)
+        {
+            final VelocityTracker tracker = getVelocityTracker();
+            tracker.computeCurrentVelocity(1000);
+
+            final LifecycleInfo info = getLifecycleInfo();
+            summary.onFinish(getTouchHelper().getHistory().getPeakSpeed(),
+                    tracker.getXVelocity(), tracker.getYVelocity(),
+                    info.hasConsumeEvent(), info.isCancelConsumeEvent(), info.isTransferred());
+        }
 
         releaseVelocityTracker();
+        mVelocityReplayPending = false;
         getLifecycleInfo().reset();
+        mMachine.finishGesture();
+
+        if (summary != null)
+        {
+            summary.setEndState(mMachine.getState() == GestureStateMachine.STATE_FLING ? State.Fling : State.Idle);
+            final FGestureSummary.Listener listener = mSummaryListener;
+            if (listener != null)
+                listener.onGestureSummary(this, summary);
+        }
 
-        if (mState == State.Consume)
-            setState(State.Idle);
+        if (mMachine.getState() == GestureStateMachine.STATE_IDLE)
+            releasePooledComponents();
     }
 
     private final class IdleRunnable implements Runnable
@@ -264,7 +1132,7 @@ public class FGestureManager
                 Log.i(FGestureManager.class.getSimpleName(), "IdleRunnable run");
 
             mPost = false;
-            setState(State.Idle);
+            mMachine.commitIdle();
         }
 
         public void post()
@@ -286,10 +1154,46 @@ public class FGestureManager
         }
     }
 
+    static final class GestureScroller extends FScroller
+    {
+        FGestureManager mOwner;
+
+        GestureScroller(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        protected void onScrollerStart()
+        {
+            if (mOwner != null)
+                mOwner.onScrollerStart();
+            super.onScrollerStart();
+        }
+
+        @Override
+        protected void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+        {
+            if (mOwner != null)
+                mOwner.onScrollerCompute(lastX, lastY, currX, currY);
+            super.onScrollerCompute(lastX, lastY, currX, currY);
+        }
+
+        @Override
+        protected void onScrollerFinish(boolean isAbort)
+        {
+            if (mOwner != null)
+                mOwner.onScrollerFinish(isAbort);
+            super.onScrollerFinish(isAbort);
+        }
+    }
+
     public static final class LifecycleInfo
     {
-        private boolean mHasConsumeEvent;
-        private boolean mIsCancelConsumeEvent;
+        GestureStateMachine mMachine;
+        private int mDownEdge;
+        private boolean mIsEdgeMissed;
+        private boolean mIsTransferred;
 
         /**
          * 从按下到当前{@link Callback#onEventConsume(MotionEvent)}方法是否消费过事件
@@ -298,7 +1202,7 @@ public class FGestureManager
          */
         public boolean hasConsumeEvent()
         {
-            return mHasConsumeEvent;
+            return mMachine != null && mMachine.hasConsumeEvent();
         }
 
         /**
@@ -308,26 +1212,65 @@ public class FGestureManager
          */
         public boolean isCancelConsumeEvent()
         {
-            return mIsCancelConsumeEvent;
+            return mMachine != null && mMachine.isCancelConsumeEvent();
         }
 
-        void setHasConsumeEvent(boolean has)
+        /**
+         * 按下的时候命中的边缘区域{@link #EDGE_LEFT}等，没有设置边缘区域或者没有命中返回0
+         *
+         * @return
+         */
+        public int getDownEdge()
         {
-            mHasConsumeEvent = has;
+            return mDownEdge;
         }
 
-        void setCancelConsumeEvent(boolean cancel)
+        /**
+         * 设置了边缘区域，但是按下的位置不在任何边缘区域内，本次手势不会拦截和消费事件
+         *
+         * @return
+         */
+        public boolean isEdgeMissed()
+        {
+            return mIsEdgeMissed;
+        }
+
+        /**
+         * 本次手势是否已经通过{@link #transferGestureTo(FGestureManager)}交给其他对象处理
+         *
+         * @return
+         */
+        public boolean isTransferred()
         {
-            mIsCancelConsumeEvent = cancel;
+            return mIsTransferred;
+        }
+
+        void setDownEdge(int edge)
+        {
+            mDownEdge = edge;
+        }
+
+        void setEdgeMissed(boolean missed)
+        {
+            mIsEdgeMissed = missed;
+        }
+
+        void setTransferred(boolean transferred)
+        {
+            mIsTransferred = transferred;
         }
 
         void reset()
         {
-            mHasConsumeEvent = false;
-            mIsCancelConsumeEvent = false;
+            mDownEdge = 0;
+            mIsEdgeMissed = false;
+            mIsTransferred = false;
         }
     }
 
+    /**
+     * 顺序和{@link GestureStateMachine#STATE_IDLE}等常量一致
+     */
     public enum State
     {
         /**
@@ -392,6 +1335,17 @@ public class FGestureManager
         {
         }
 
+        /**
+         * 是否消费鼠标滚轮和触控板的滚动事件(由{@link #onGenericMotionEvent(MotionEvent)}方法触发)，默认返回false
+         *
+         * @param event {@link MotionEvent#ACTION_SCROLL}
+         * @return
+         */
+        public boolean shouldConsumeScrollEvent(MotionEvent event)
+        {
+            return false;
+        }
+
         /**
          * 事件结束，收到{@link MotionEvent#ACTION_UP}或者{@link MotionEvent#ACTION_CANCEL}事件
          *
@@ -411,23 +1365,37 @@ public class FGestureManager
         public abstract void onScrollerCompute(int lastX, int lastY, int currX, int currY);
     }
 
+    /**
+     * 状态变化观察者
+     */
+    public interface StateObserver
+    {
+        void onStateChanged(State oldState, State newState);
+    }
+
+    /**
+     * 滚动观察者
+     */
+    public interface ScrollerObserver
+    {
+        void onScrollerCompute(int lastX, int lastY, int currX, int currY);
+    }
+
     //---------- TagHolder Start ----------
 
     public static class TagHolder
     {
         /**
-         * 是否需要拦截事件标识(用于onInterceptTouchEvent方法)
+         * 拦截和消费标识保存在状态机中
          */
-        private boolean mTagIntercept = false;
-        /**
-         * 是否需要消费事件标识(用于onTouchEvent方法)
-         */
-        private boolean mTagConsume = false;
+        private final GestureStateMachine mMachine;
 
         private Callback mCallback;
+        private Callback[] mCallbacks = new Callback[0];
 
-        private TagHolder()
+        private TagHolder(GestureStateMachine machine)
         {
+            mMachine = machine;
         }
 
         //---------- public method start ----------
@@ -437,14 +1405,29 @@ public class FGestureManager
             mCallback = callback;
         }
 
+        /**
+         * 添加回调，和{@link #setCallback(Callback)}设置的回调互不影响，在它之后按照添加的顺序通知
+         *
+         * @param callback
+         */
+        public void addCallback(Callback callback)
+        {
+            mCallbacks = appendObserver(mCallbacks, callback);
+        }
+
+        public void removeCallback(Callback callback)
+        {
+            mCallbacks = removeObserver(mCallbacks, callback);
+        }
+
         public boolean isTagIntercept()
         {
-            return mTagIntercept;
+            return mMachine.isTagIntercept();
         }
 
         public boolean isTagConsume()
         {
-            return mTagConsume;
+            return mMachine.isTagConsume();
         }
 
         //---------- public method end ----------
@@ -456,11 +1439,7 @@ public class FGestureManager
          */
         void setTagIntercept(boolean tag)
         {
-            if (mTagIntercept != tag)
-            {
-                mTagIntercept = tag;
-                onTagInterceptChanged(tag);
-            }
+            mMachine.setTagIntercept(tag);
         }
 
         /**
@@ -470,29 +1449,36 @@ public class FGestureManager
          */
         void setTagConsume(boolean tag)
         {
-            if (mTagConsume != tag)
-            {
-                mTagConsume = tag;
-                onTagConsumeChanged(tag);
-            }
+            mMachine.setTagConsume(tag);
         }
 
         void reset()
         {
-            setTagIntercept(false);
-            setTagConsume(false);
+            mMachine.resetTags();
         }
 
         protected void onTagInterceptChanged(boolean tag)
         {
             if (mCallback != null)
                 mCallback.onTagInterceptChanged(tag);
+
+            final Callback[] callbacks = mCallbacks;
+            for (int i = 0; i < callbacks.length; i++)
+            {
+                callbacks[i].onTagInterceptChanged(tag);
+            }
         }
 
         protected void onTagConsumeChanged(boolean tag)
         {
             if (mCallback != null)
                 mCallback.onTagConsumeChanged(tag);
+
+            final Callback[] callbacks = mCallbacks;
+            for (int i = 0; i < callbacks.length; i++)
+            {
+                callbacks[i].onTagConsumeChanged(tag);
+            }
         }
 
         public interface Callback
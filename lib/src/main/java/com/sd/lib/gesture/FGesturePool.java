@@ -0,0 +1,73 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+
+/**
+ * {@link FGestureManager}共享模式下的对象池，例如同一个列表中所有item的{@link FGestureManager}共用一个对象池
+ * <br>
+ * 只能在主线程使用
+ */
+public class FGesturePool
+{
+    private final FGestureManager.GestureScroller[] mScrollers;
+    private int mScrollerSize;
+
+    private final FTouchHelper[] mTouchHelpers;
+    private int mTouchHelperSize;
+
+    /**
+     * @param maxSize 每种对象最多缓存的数量
+     */
+    public FGesturePool(int maxSize)
+    {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must > 0");
+
+        mScrollers = new FGestureManager.GestureScroller[maxSize];
+        mTouchHelpers = new FTouchHelper[maxSize];
+    }
+
+    FGestureManager.GestureScroller obtainScroller(Context context)
+    {
+        if (mScrollerSize > 0)
+        {
+            mScrollerSize--;
+            final FGestureManager.GestureScroller scroller = mScrollers[mScrollerSize];
+            mScrollers[mScrollerSize] = null;
+            return scroller;
+        }
+        return new FGestureManager.GestureScroller(context.getApplicationContext());
+    }
+
+    void recycleScroller(FGestureManager.GestureScroller scroller)
+    {
+        scroller.resetConfig();
+        if (mScrollerSize < mScrollers.length)
+        {
+            mScrollers[mScrollerSize] = scroller;
+            mScrollerSize++;
+        }
+    }
+
+    FTouchHelper obtainTouchHelper()
+    {
+        if (mTouchHelperSize > 0)
+        {
+            mTouchHelperSize--;
+            final FTouchHelper helper = mTouchHelpers[mTouchHelperSize];
+            mTouchHelpers[mTouchHelperSize] = null;
+            return helper;
+        }
+        return new FTouchHelper();
+    }
+
+    void recycleTouchHelper(FTouchHelper helper)
+    {
+        helper.reset();
+        if (mTouchHelperSize < mTouchHelpers.length)
+        {
+            mTouchHelpers[mTouchHelperSize] = helper;
+            mTouchHelperSize++;
+        }
+    }
+}
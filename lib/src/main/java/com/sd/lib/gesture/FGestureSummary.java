@@ -0,0 +1,226 @@
+package com.sd.lib.gesture;
+
+/**
+ * 单次手势的统计信息，从按下到抬起或者取消
+ * <br>
+ * 由{@link FGestureManager}在分发事件的时候逐步更新，同一个对象会在每次手势中重复使用，
+ * 只在{@link Listener#onGestureSummary(FGestureManager, FGestureSummary)}回调中有效，需要保存的话复制其中的值
+ */
+public final class FGestureSummary
+{
+    private long mDownTime;
+    private long mEventTime;
+    private int mEventCount;
+
+    private float mLastX;
+    private float mLastY;
+    private double mPathLength;
+
+    private float mPeakVelocity;
+    private float mReleaseVelocityX;
+    private float mReleaseVelocityY;
+
+    private long mTimeToIntercept;
+    private long mTimeToConsume;
+
+    private boolean mHasConsumeEvent;
+    private boolean mIsCancelConsumeEvent;
+    private boolean mIsTransferred;
+    private FGestureManager.State mEndState = FGestureManager.State.Idle;
+
+    FGestureSummary()
+    {
+        reset(0);
+    }
+
+    void reset(long downTime)
+    {
+        mDownTime = downTime;
+        mEventTime = downTime;
+        mEventCount = 0;
+        mPathLength = 0;
+        mPeakVelocity = 0;
+        mReleaseVelocityX = 0;
+        mReleaseVelocityY = 0;
+        mTimeToIntercept = -1;
+        mTimeToConsume = -1;
+        mHasConsumeEvent = false;
+        mIsCancelConsumeEvent = false;
+        mIsTransferred = false;
+        mEndState = FGestureManager.State.Idle;
+    }
+
+    void onEvent(long eventTime, float x, float y)
+    {
+        if (mEventCount > 0)
+        {
+            final float dx = x - mLastX;
+            final float dy = y - mLastY;
+            mPathLength += Math.sqrt(dx * dx + dy * dy);
+        }
+
+        mEventTime = eventTime;
+        mLastX = x;
+        mLastY = y;
+        mEventCount++;
+    }
+
+    void onIntercept()
+    {
+        if (mTimeToIntercept < 0)
+            mTimeToIntercept = mEventTime - mDownTime;
+    }
+
+    void onConsume()
+    {
+        if (mTimeToConsume < 0)
+            mTimeToConsume = mEventTime - mDownTime;
+    }
+
+    void onFinish(float peakVelocity, float releaseVelocityX, float releaseVelocityY,
+                  boolean hasConsumeEvent, boolean isCancelConsumeEvent, boolean isTransferred)
+    {
+        mPeakVelocity = peakVelocity;
+        mReleaseVelocityX = releaseVelocityX;
+        mReleaseVelocityY = releaseVelocityY;
+        mHasConsumeEvent = hasConsumeEvent;
+        mIsCancelConsumeEvent = isCancelConsumeEvent;
+        mIsTransferred = isTransferred;
+    }
+
+    void setEndState(FGestureManager.State state)
+    {
+        mEndState = state;
+    }
+
+    /**
+     * 返回按下的时间
+     *
+     * @return
+     */
+    public long getDownTime()
+    {
+        return mDownTime;
+    }
+
+    /**
+     * 返回从按下到最后一个事件的时长(毫秒)
+     *
+     * @return
+     */
+    public long getDuration()
+    {
+        return mEventTime - mDownTime;
+    }
+
+    /**
+     * 返回处理过的事件数量，包括按下和抬起事件
+     *
+     * @return
+     */
+    public int getEventCount()
+    {
+        return mEventCount;
+    }
+
+    /**
+     * 返回手指移动的路径长度(像素)
+     *
+     * @return
+     */
+    public float getPathLength()
+    {
+        return (float) mPathLength;
+    }
+
+    /**
+     * 返回相邻两个事件之间的最大速度(像素/秒)
+     *
+     * @return
+     */
+    public float getPeakVelocity()
+    {
+        return mPeakVelocity;
+    }
+
+    /**
+     * 返回抬起时候x方向的速度(像素/秒)
+     *
+     * @return
+     */
+    public float getReleaseVelocityX()
+    {
+        return mReleaseVelocityX;
+    }
+
+    /**
+     * 返回抬起时候y方向的速度(像素/秒)
+     *
+     * @return
+     */
+    public float getReleaseVelocityY()
+    {
+        return mReleaseVelocityY;
+    }
+
+    /**
+     * 返回从按下到开始拦截的时长(毫秒)，-1表示没有拦截
+     *
+     * @return
+     */
+    public long getTimeToIntercept()
+    {
+        return mTimeToIntercept;
+    }
+
+    /**
+     * 返回从按下到开始消费的时长(毫秒)，-1表示没有消费
+     *
+     * @return
+     */
+    public long getTimeToConsume()
+    {
+        return mTimeToConsume;
+    }
+
+    public boolean hasConsumeEvent()
+    {
+        return mHasConsumeEvent;
+    }
+
+    public boolean isCancelConsumeEvent()
+    {
+        return mIsCancelConsumeEvent;
+    }
+
+    /**
+     * 手势是否交给了其他对象处理{@link FGestureManager#transferGestureTo(FGestureManager)}
+     *
+     * @return
+     */
+    public boolean isTransferred()
+    {
+        return mIsTransferred;
+    }
+
+    /**
+     * 返回手势结束后的状态，{@link FGestureManager.State#Fling}或者{@link FGestureManager.State#Idle}
+     *
+     * @return
+     */
+    public FGestureManager.State getEndState()
+    {
+        return mEndState;
+    }
+
+    public interface Listener
+    {
+        /**
+         * 手势结束，在{@link FGestureManager.Callback#onEventFinish(android.view.VelocityTracker, android.view.MotionEvent)}之后回调
+         *
+         * @param manager
+         * @param summary 只在回调中有效
+         */
+        void onGestureSummary(FGestureManager manager, FGestureSummary summary);
+    }
+}
@@ -0,0 +1,127 @@
+package com.sd.lib.gesture;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * 手势分发追踪类，默认关闭
+ * <br>
+ * 所有参数都是基本类型，未设置{@link Sink}的时候不会产生任何字符串拼接
+ */
+public final class FGestureTrace
+{
+    public static final int SECTION_INTERCEPT = 0;
+    public static final int SECTION_TOUCH = 1;
+    public static final int SECTION_CONSUME = 2;
+    public static final int SECTION_FINISH = 3;
+    public static final int SECTION_SCROLLER_COMPUTE = 4;
+
+    private static final String[] SECTION_NAMES = {
+            "FGesture:intercept",
+            "FGesture:touch",
+            "FGesture:consume",
+            "FGesture:finish",
+            "FGesture:scrollerCompute",
+    };
+
+    private static volatile Sink sSink;
+
+    private FGestureTrace()
+    {
+    }
+
+    /**
+     * 设置追踪输出对象，null-关闭追踪
+     *
+     * @param sink
+     */
+    public static void setSink(Sink sink)
+    {
+        sSink = sink;
+    }
+
+    /**
+     * 设置是否输出到{@link Trace}，可以在systrace或者Perfetto中查看
+     *
+     * @param enable
+     */
+    public static void setSystraceEnabled(boolean enable)
+    {
+        if (enable)
+        {
+            if (Build.VERSION.SDK_INT >= 18)
+                sSink = new SystraceSink();
+        } else
+        {
+            if (sSink instanceof SystraceSink)
+                sSink = null;
+        }
+    }
+
+    /**
+     * 是否开启了追踪
+     *
+     * @return
+     */
+    public static boolean isEnabled()
+    {
+        return sSink != null;
+    }
+
+    /**
+     * 返回区段名称
+     *
+     * @param section
+     * @return
+     */
+    public static String getSectionName(int section)
+    {
+        return SECTION_NAMES[section];
+    }
+
+    static void begin(int section)
+    {
+        final Sink sink = sSink;
+        if (sink != null)
+            sink.beginSection(section);
+    }
+
+    static void end(int section)
+    {
+        final Sink sink = sSink;
+        if (sink != null)
+            sink.endSection(section);
+    }
+
+    public interface Sink
+    {
+        /**
+         * 区段开始
+         *
+         * @param section {@link #SECTION_INTERCEPT}等
+         */
+        void beginSection(int section);
+
+        /**
+         * 区段结束
+         *
+         * @param section {@link #SECTION_INTERCEPT}等
+         */
+        void endSection(int section);
+    }
+
+    private static final class SystraceSink implements Sink
+    {
+        @Override
+        public void beginSection(int section)
+        {
+            Trace.beginSection(SECTION_NAMES[section]);
+        }
+
+        @Override
+        public void endSection(int section)
+        {
+            Trace.endSection();
+        }
+    }
+}
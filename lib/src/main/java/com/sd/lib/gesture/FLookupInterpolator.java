@@ -0,0 +1,171 @@
+package com.sd.lib.gesture;
+
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.BounceInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.OvershootInterpolator;
+
+/**
+ * 查表插值器，预先计算好插值结果，每一帧只需要读取数组并做一次线性插值
+ * <br>
+ * 对象创建后不可变，可以在多个{@link FScroller}之间共享
+ */
+public class FLookupInterpolator implements Interpolator
+{
+    /**
+     * 默认精度
+     */
+    public static final int DEFAULT_RESOLUTION = 256;
+
+    private static FLookupInterpolator sViscousFluid;
+    private static FLookupInterpolator sDecelerate;
+    private static FLookupInterpolator sAccelerateDecelerate;
+    private static FLookupInterpolator sBounce;
+    private static FLookupInterpolator sOvershoot;
+
+    private final float[] mValues;
+    private final int mLastIndex;
+
+    /**
+     * @param values 在[0, 1]区间均匀采样的插值结果，至少要有2个值
+     */
+    public FLookupInterpolator(float[] values)
+    {
+        if (values == null)
+            throw new NullPointerException();
+        if (values.length < 2)
+            throw new IllegalArgumentException("values length must >= 2");
+
+        mValues = values.clone();
+        mLastIndex = values.length - 1;
+    }
+
+    /**
+     * 返回精度，即采样区间的数量
+     *
+     * @return
+     */
+    public int getResolution()
+    {
+        return mLastIndex;
+    }
+
+    @Override
+    public float getInterpolation(float input)
+    {
+        if (input <= 0)
+            return mValues[0];
+        if (input >= 1)
+            return mValues[mLastIndex];
+
+        final float position = input * mLastIndex;
+        final int index = (int) position;
+        final float fraction = position - index;
+
+        final float start = mValues[index];
+        return start + (mValues[index + 1] - start) * fraction;
+    }
+
+    /**
+     * 把插值器烘焙成查表插值器
+     *
+     * @param interpolator
+     * @param resolution   采样区间的数量
+     * @return
+     */
+    public static FLookupInterpolator bake(Interpolator interpolator, int resolution)
+    {
+        if (interpolator == null)
+            throw new NullPointerException();
+        if (resolution < 1)
+            throw new IllegalArgumentException("resolution must >= 1");
+
+        final float[] values = new float[resolution + 1];
+        for (int i = 0; i <= resolution; i++)
+        {
+            values[i] = interpolator.getInterpolation((float) i / resolution);
+        }
+        return new FLookupInterpolator(values);
+    }
+
+    /**
+     * {@link android.widget.Scroller}默认使用的插值效果
+     *
+     * @return
+     */
+    public static synchronized FLookupInterpolator viscousFluid()
+    {
+        if (sViscousFluid == null)
+            sViscousFluid = bake(new ViscousFluidInterpolator(), DEFAULT_RESOLUTION);
+        return sViscousFluid;
+    }
+
+    public static synchronized FLookupInterpolator decelerate()
+    {
+        if (sDecelerate == null)
+            sDecelerate = bake(new DecelerateInterpolator(), DEFAULT_RESOLUTION);
+        return sDecelerate;
+    }
+
+    public static synchronized FLookupInterpolator accelerateDecelerate()
+    {
+        if (sAccelerateDecelerate == null)
+            sAccelerateDecelerate = bake(new AccelerateDecelerateInterpolator(), DEFAULT_RESOLUTION);
+        return sAccelerateDecelerate;
+    }
+
+    public static synchronized FLookupInterpolator bounce()
+    {
+        if (sBounce == null)
+            sBounce = bake(new BounceInterpolator(), DEFAULT_RESOLUTION);
+        return sBounce;
+    }
+
+    public static synchronized FLookupInterpolator overshoot()
+    {
+        if (sOvershoot == null)
+            sOvershoot = bake(new OvershootInterpolator(), DEFAULT_RESOLUTION);
+        return sOvershoot;
+    }
+
+    /**
+     * 和{@link android.widget.Scroller}内部的ViscousFluidInterpolator计算方式一致
+     */
+    static final class ViscousFluidInterpolator implements Interpolator
+    {
+        private static final float VISCOUS_FLUID_SCALE = 8.0f;
+        private static final float VISCOUS_FLUID_NORMALIZE;
+        private static final float VISCOUS_FLUID_OFFSET;
+
+        static
+        {
+            VISCOUS_FLUID_NORMALIZE = 1.0f / viscousFluid(1.0f);
+            VISCOUS_FLUID_OFFSET = 1.0f - VISCOUS_FLUID_NORMALIZE * viscousFluid(1.0f);
+        }
+
+        private static float viscousFluid(float x)
+        {
+            x *= VISCOUS_FLUID_SCALE;
+            if (x < 1.0f)
+            {
+                x -= (1.0f - (float) Math.exp(-x));
+            } else
+            {
+                final float start = 0.36787944117f;
+                x = 1.0f - (float) Math.exp(1.0f - x);
+                x = start + x * (1.0f - start);
+            }
+            return x;
+        }
+
+        @Override
+        public float getInterpolation(float input)
+        {
+            final float interpolated = VISCOUS_FLUID_NORMALIZE * viscousFluid(input);
+            if (interpolated > 0)
+                return interpolated + VISCOUS_FLUID_OFFSET;
+            return interpolated;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.sd.lib.gesture;
+
+import android.os.Build;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 多指拖动帮助类，每个手指可以同时拖动不同的child，松手后每个child独立执行滚动动画
+ * <br>
+ * 手指状态保存在以pointerId为下标的数组中，所有child的滚动在{@link #computeScrollOffset()}中一次计算完成
+ */
+public class FMultiDragHelper
+{
+    /**
+     * 支持的最大pointerId
+     */
+    private static final int MAX_POINTER_ID = 32;
+
+    private final ViewGroup mViewGroup;
+    private final Callback mCallback;
+
+    private final View[] mPointerTarget = new View[MAX_POINTER_ID];
+    private final float[] mPointerLastX = new float[MAX_POINTER_ID];
+    private final float[] mPointerLastY = new float[MAX_POINTER_ID];
+    private int mPointerCount;
+
+    private View[] mSettleView = new View[4];
+    private FScroller[] mSettleScroller = new FScroller[4];
+    private int mSettleCount;
+
+    private FScroller[] mScrollerPool = new FScroller[4];
+    private int mScrollerPoolSize;
+
+    private VelocityTracker mVelocityTracker;
+
+    /**
+     * 最近一次处理的事件，同一个事件经过{@link #onInterceptTouchEvent(MotionEvent)}和{@link #onTouchEvent(MotionEvent)}的时候只处理一次
+     */
+    private long mLastEventTime = -1;
+    private long mLastEventDownTime = -1;
+    private int mLastEventAction = -1;
+
+    /**
+     * 滚动动画的最大滚动距离，在ViewGroup尺寸变化的时候更新
+     */
+    private int mMaxScrollDistance;
+
+    public FMultiDragHelper(ViewGroup viewGroup, Callback callback)
+    {
+        if (viewGroup == null || callback == null)
+            throw new NullPointerException();
+
+        mViewGroup = viewGroup;
+        mCallback = callback;
+
+        mMaxScrollDistance = Math.max(viewGroup.getWidth(), viewGroup.getHeight());
+        viewGroup.addOnLayoutChangeListener(new View.OnLayoutChangeListener()
+        {
+            @Override
+            public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom)
+            {
+                if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop)
+                    updateMaxScrollDistance(Math.max(right - left, bottom - top));
+            }
+        });
+    }
+
+    private void updateMaxScrollDistance(int distance)
+    {
+        mMaxScrollDistance = distance;
+        for (int i = 0; i < mSettleCount; i++)
+        {
+            mSettleScroller[i].setMaxScrollDistance(distance);
+        }
+        for (int i = 0; i < mScrollerPoolSize; i++)
+        {
+            mScrollerPool[i].setMaxScrollDistance(distance);
+        }
+    }
+
+    /**
+     * 返回正在被拖动的child数量
+     *
+     * @return
+     */
+    public int getDraggingCount()
+    {
+        return mPointerCount;
+    }
+
+    /**
+     * 返回某个手指正在拖动的child
+     *
+     * @param pointerId
+     * @return
+     */
+    public View getDragTarget(int pointerId)
+    {
+        if (pointerId < 0 || pointerId >= MAX_POINTER_ID)
+            return null;
+        return mPointerTarget[pointerId];
+    }
+
+    /**
+     * child是否正在被某个手指拖动
+     *
+     * @param child
+     * @return
+     */
+    public boolean isDragging(View child)
+    {
+        if (mPointerCount <= 0)
+            return false;
+
+        for (int i = 0; i < MAX_POINTER_ID; i++)
+        {
+            if (mPointerTarget[i] == child)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 外部调用
+     *
+     * @param event
+     * @return true-有手指正在拖动child
+     */
+    public boolean onInterceptTouchEvent(MotionEvent event)
+    {
+        processTouchEvent(event);
+        return mPointerCount > 0;
+    }
+
+    /**
+     * 外部调用
+     *
+     * @param event
+     * @return true-有手指正在拖动child
+     */
+    public boolean onTouchEvent(MotionEvent event)
+    {
+        processTouchEvent(event);
+        return mPointerCount > 0;
+    }
+
+    private void processTouchEvent(MotionEvent event)
+    {
+        final long eventTime = event.getEventTime();
+        final long downTime = event.getDownTime();
+        final int eventAction = event.getAction();
+        if (eventTime == mLastEventTime && downTime == mLastEventDownTime && eventAction == mLastEventAction)
+            return;
+
+        mLastEventTime = eventTime;
+        mLastEventDownTime = downTime;
+        mLastEventAction = eventAction;
+
+        if (mVelocityTracker == null)
+            mVelocityTracker = VelocityTracker.obtain();
+        mVelocityTracker.addMovement(event);
+
+        final int action = event.getActionMasked();
+        switch (action)
+        {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                onPointerDown(event, event.getActionIndex());
+                break;
+            case MotionEvent.ACTION_MOVE:
+                onPointerMove(event);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onPointerUp(event.getPointerId(event.getActionIndex()), false);
+                break;
+            case MotionEvent.ACTION_UP:
+                onPointerUp(event.getPointerId(event.getActionIndex()), false);
+                releaseAll(false);
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                releaseAll(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onPointerDown(MotionEvent event, int pointerIndex)
+    {
+        final int pointerId = event.getPointerId(pointerIndex);
+        if (pointerId >= MAX_POINTER_ID || mPointerTarget[pointerId] != null)
+            return;
+
+        final float x = event.getX(pointerIndex);
+        final float y = event.getY(pointerIndex);
+
+        final View target = mCallback.findDragTarget(mViewGroup, pointerId, (int) x, (int) y);
+        if (target == null || isDragging(target))
+            return;
+
+        abortSettle(target);
+
+        mPointerTarget[pointerId] = target;
+        mPointerLastX[pointerId] = x;
+        mPointerLastY[pointerId] = y;
+        mPointerCount++;
+
+        mCallback.onDragStart(target, pointerId);
+    }
+
+    private void onPointerMove(MotionEvent event)
+    {
+        if (mPointerCount <= 0)
+            return;
+
+        final int count = event.getPointerCount();
+        for (int i = 0; i < count; i++)
+        {
+            final int pointerId = event.getPointerId(i);
+            if (pointerId >= MAX_POINTER_ID)
+                continue;
+
+            final View target = mPointerTarget[pointerId];
+            if (target == null)
+                continue;
+
+            final int dx = (int) (event.getX(i) - mPointerLastX[pointerId]);
+            final int dy = (int) (event.getY(i) - mPointerLastY[pointerId]);
+            if (dx == 0 && dy == 0)
+                continue;
+
+            // 只累加整数部分，避免小数被丢弃后产生偏差
+            mPointerLastX[pointerId] += dx;
+            mPointerLastY[pointerId] += dy;
+            mCallback.onDrag(target, pointerId, dx, dy);
+        }
+    }
+
+    private void onPointerUp(int pointerId, boolean cancel)
+    {
+        if (pointerId >= MAX_POINTER_ID)
+            return;
+
+        final View target = mPointerTarget[pointerId];
+        if (target == null)
+            return;
+
+        mPointerTarget[pointerId] = null;
+        mPointerCount--;
+
+        float velocityX = 0;
+        float velocityY = 0;
+        if (!cancel && mVelocityTracker != null)
+        {
+            mVelocityTracker.computeCurrentVelocity(1000);
+            velocityX = mVelocityTracker.getXVelocity(pointerId);
+            velocityY = mVelocityTracker.getYVelocity(pointerId);
+        }
+
+        mCallback.onRelease(target, pointerId, velocityX, velocityY);
+    }
+
+    private void releaseAll(boolean cancel)
+    {
+        for (int i = 0; i < MAX_POINTER_ID && mPointerCount > 0; i++)
+        {
+            onPointerUp(i, cancel);
+        }
+
+        if (mVelocityTracker != null)
+        {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    //---------- Settle Start ----------
+
+    /**
+     * 让child滚动指定的距离
+     *
+     * @param child
+     * @param dx
+     * @param dy
+     * @param duration 小于0-自动计算时长
+     * @return true-提交滚动任务成功
+     */
+    public boolean settleBy(View child, int dx, int dy, int duration)
+    {
+        abortSettle(child);
+
+        final FScroller scroller = obtainScroller();
+        if (!scroller.scrollDelta(0, 0, dx, dy, duration))
+        {
+            recycleScroller(scroller);
+            return false;
+        }
+
+        addSettle(child, scroller);
+        return true;
+    }
+
+    /**
+     * 让child滚动到指定的位置
+     *
+     * @param child
+     * @param left
+     * @param top
+     * @param duration 小于0-自动计算时长
+     * @return true-提交滚动任务成功
+     */
+    public boolean settleTo(View child, int left, int top, int duration)
+    {
+        return settleBy(child, left - child.getLeft(), top - child.getTop(), duration);
+    }
+
+    /**
+     * 让child以指定速率惯性滚动
+     *
+     * @param child
+     * @param velocityX
+     * @param velocityY
+     * @param minLeft
+     * @param maxLeft
+     * @param minTop
+     * @param maxTop
+     * @return true-提交滚动任务成功
+     */
+    public boolean fling(View child, int velocityX, int velocityY, int minLeft, int maxLeft, int minTop, int maxTop)
+    {
+        abortSettle(child);
+
+        final FScroller scroller = obtainScroller();
+        if (!scroller.fling(child.getLeft(), child.getTop(), velocityX, velocityY, minLeft, maxLeft, minTop, maxTop))
+        {
+            recycleScroller(scroller);
+            return false;
+        }
+
+        addSettle(child, scroller);
+        return true;
+    }
+
+    /**
+     * 停止child的滚动
+     *
+     * @param child
+     * @return true-child有滚动被停止
+     */
+    public boolean abortSettle(View child)
+    {
+        for (int i = 0; i < mSettleCount; i++)
+        {
+            if (mSettleView[i] == child)
+            {
+                mSettleScroller[i].abortAnimation();
+                removeSettle(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否有child正在滚动
+     *
+     * @return
+     */
+    public boolean isSettling()
+    {
+        return mSettleCount > 0;
+    }
+
+    /**
+     * 计算所有child的滚动，在{@link View#computeScroll()}中调用
+     *
+     * @return true-还有child在滚动，需要继续刷新
+     */
+    public boolean computeScrollOffset()
+    {
+        int i = 0;
+        while (i < mSettleCount)
+        {
+            final View child = mSettleView[i];
+            final FScroller scroller = mSettleScroller[i];
+
+            final int lastX = scroller.getCurrX();
+            final int lastY = scroller.getCurrY();
+            final boolean compute = scroller.computeScrollOffset();
+
+            final int dx = scroller.getCurrX() - lastX;
+            final int dy = scroller.getCurrY() - lastY;
+            if (dx != 0 || dy != 0)
+                mCallback.onSettle(child, dx, dy);
+
+            if (compute)
+            {
+                i++;
+            } else
+            {
+                removeSettle(i);
+                mCallback.onSettleFinish(child);
+            }
+        }
+        return mSettleCount > 0;
+    }
+
+    private void addSettle(View child, FScroller scroller)
+    {
+        if (mSettleCount == mSettleView.length)
+        {
+            final int capacity = mSettleCount * 2;
+
+            final View[] views = new View[capacity];
+            System.arraycopy(mSettleView, 0, views, 0, mSettleCount);
+            mSettleView = views;
+
+            final FScroller[] scrollers = new FScroller[capacity];
+            System.arraycopy(mSettleScroller, 0, scrollers, 0, mSettleCount);
+            mSettleScroller = scrollers;
+        }
+
+        mSettleView[mSettleCount] = child;
+        mSettleScroller[mSettleCount] = scroller;
+        mSettleCount++;
+
+        if (Build.VERSION.SDK_INT >= 16)
+            mViewGroup.postInvalidateOnAnimation();
+        else
+            mViewGroup.postInvalidate();
+    }
+
+    private void removeSettle(int index)
+    {
+        final FScroller scroller = mSettleScroller[index];
+
+        final int last = mSettleCount - 1;
+        mSettleView[index] = mSettleView[last];
+        mSettleScroller[index] = mSettleScroller[last];
+        mSettleView[last] = null;
+        mSettleScroller[last] = null;
+        mSettleCount = last;
+
+        recycleScroller(scroller);
+    }
+
+    private FScroller obtainScroller()
+    {
+        if (mScrollerPoolSize > 0)
+        {
+            mScrollerPoolSize--;
+            final FScroller scroller = mScrollerPool[mScrollerPoolSize];
+            mScrollerPool[mScrollerPoolSize] = null;
+            return scroller;
+        }
+
+        final FScroller scroller = new FScroller(mViewGroup.getContext());
+        scroller.setMaxScrollDistance(mMaxScrollDistance);
+        return scroller;
+    }
+
+    private void recycleScroller(FScroller scroller)
+    {
+        if (mScrollerPoolSize == mScrollerPool.length)
+        {
+            final FScroller[] pool = new FScroller[mScrollerPoolSize * 2];
+            System.arraycopy(mScrollerPool, 0, pool, 0, mScrollerPoolSize);
+            mScrollerPool = pool;
+        }
+
+        mScrollerPool[mScrollerPoolSize] = scroller;
+        mScrollerPoolSize++;
+    }
+
+    //---------- Settle End ----------
+
+    public abstract static class Callback
+    {
+        /**
+         * 查找手指按下位置要拖动的child，默认返回最顶部的child
+         *
+         * @param parent
+         * @param pointerId
+         * @param x         相对parent的坐标
+         * @param y         相对parent的坐标
+         * @return null-这个手指不拖动任何child
+         */
+        public View findDragTarget(ViewGroup parent, int pointerId, int x, int y)
+        {
+            return FTouchHelper.findTopChildUnder(parent, x, y);
+        }
+
+        /**
+         * 开始拖动
+         *
+         * @param child
+         * @param pointerId
+         */
+        public void onDragStart(View child, int pointerId)
+        {
+        }
+
+        /**
+         * 拖动回调
+         *
+         * @param child
+         * @param pointerId
+         * @param dx
+         * @param dy
+         */
+        public abstract void onDrag(View child, int pointerId, int dx, int dy);
+
+        /**
+         * 手指抬起，可以在这里调用{@link FMultiDragHelper#settleTo(View, int, int, int)}或者{@link FMultiDragHelper#fling(View, int, int, int, int, int, int)}
+         *
+         * @param child
+         * @param pointerId
+         * @param velocityX 每秒的速率，事件被取消的时候为0
+         * @param velocityY 每秒的速率，事件被取消的时候为0
+         */
+        public abstract void onRelease(View child, int pointerId, float velocityX, float velocityY);
+
+        /**
+         * 滚动回调
+         *
+         * @param child
+         * @param dx
+         * @param dy
+         */
+        public abstract void onSettle(View child, int dx, int dy);
+
+        /**
+         * 滚动结束
+         *
+         * @param child
+         */
+        public void onSettleFinish(View child)
+        {
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.sd.lib.gesture;
+
+import android.os.Build;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * 手势进度绑定，把归一化的进度[0, 1]通过关键帧曲线映射到多个view的属性上
+ * <br>
+ * 关键帧曲线在绑定的时候烘焙成查表数据，设置进度后在下一帧统一更新一次，只有值发生变化的属性才会被设置
+ */
+public class FProgressBinding
+{
+    public static final int PROPERTY_ALPHA = 0;
+    public static final int PROPERTY_SCALE_X = 1;
+    public static final int PROPERTY_SCALE_Y = 2;
+    public static final int PROPERTY_TRANSLATION_X = 3;
+    public static final int PROPERTY_TRANSLATION_Y = 4;
+    public static final int PROPERTY_ELEVATION = 5;
+    public static final int PROPERTY_ROTATION = 6;
+
+    private static final int CURVE_RESOLUTION = 128;
+
+    private final View mHost;
+
+    private View[] mViews = new View[4];
+    private int[] mProperties = new int[4];
+    private FLookupInterpolator[] mCurves = new FLookupInterpolator[4];
+    private float[] mValues = new float[4];
+    private int mCount;
+
+    /**
+     * 初始为NaN，保证第一次设置进度的时候所有绑定的属性都会被设置
+     */
+    private float mProgress = Float.NaN;
+    private boolean mScheduled;
+
+    private final Runnable mApplyRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            mScheduled = false;
+            applyNow();
+        }
+    };
+
+    /**
+     * @param host 用来提交每一帧更新任务的view
+     */
+    public FProgressBinding(View host)
+    {
+        if (host == null)
+            throw new NullPointerException();
+        mHost = host;
+    }
+
+    /**
+     * 绑定属性，进度从0到1的时候属性值从from线性变化到to
+     *
+     * @param view
+     * @param property {@link #PROPERTY_ALPHA}等
+     * @param from
+     * @param to
+     * @return
+     */
+    public FProgressBinding bind(View view, int property, float from, float to)
+    {
+        return bind(view, property, new float[]{0, 1}, new float[]{from, to}, null);
+    }
+
+    /**
+     * 绑定属性
+     *
+     * @param view
+     * @param property     {@link #PROPERTY_ALPHA}等
+     * @param keyProgress  关键帧的进度，从小到大排列
+     * @param keyValues    关键帧的属性值
+     * @param interpolator 相邻关键帧之间的插值器，null-线性
+     * @return
+     */
+    public FProgressBinding bind(View view, int property, float[] keyProgress, float[] keyValues, Interpolator interpolator)
+    {
+        if (view == null || keyProgress == null || keyValues == null)
+            throw new NullPointerException();
+        if (keyProgress.length == 0 || keyProgress.length != keyValues.length)
+            throw new IllegalArgumentException("keyProgress and keyValues must have the same non-zero length");
+        if (property < PROPERTY_ALPHA || property > PROPERTY_ROTATION)
+            throw new IllegalArgumentException("Illegal property:" + property);
+
+        if (mCount == mViews.length)
+        {
+            final int capacity = mCount * 2;
+
+            final View[] views = new View[capacity];
+            System.arraycopy(mViews, 0, views, 0, mCount);
+            mViews = views;
+
+            final int[] properties = new int[capacity];
+            System.arraycopy(mProperties, 0, properties, 0, mCount);
+            mProperties = properties;
+
+            final FLookupInterpolator[] curves = new FLookupInterpolator[capacity];
+            System.arraycopy(mCurves, 0, curves, 0, mCount);
+            mCurves = curves;
+
+            final float[] values = new float[capacity];
+            System.arraycopy(mValues, 0, values, 0, mCount);
+            mValues = values;
+        }
+
+        mViews[mCount] = view;
+        mProperties[mCount] = property;
+        mCurves[mCount] = bakeCurve(keyProgress, keyValues, interpolator);
+        mValues[mCount] = Float.NaN;
+        mCount++;
+
+        // 已经设置过进度的话，新绑定的属性在下一帧按照当前进度更新
+        if (!Float.isNaN(mProgress))
+            scheduleApply();
+        return this;
+    }
+
+    /**
+     * 移除所有绑定
+     */
+    public void clear()
+    {
+        for (int i = 0; i < mCount; i++)
+        {
+            mViews[i] = null;
+            mCurves[i] = null;
+        }
+        mCount = 0;
+    }
+
+    /**
+     * 清空已经设置的属性值记录，下一次更新的时候所有属性都会重新设置
+     */
+    public void invalidateValues()
+    {
+        for (int i = 0; i < mCount; i++)
+        {
+            mValues[i] = Float.NaN;
+        }
+    }
+
+    public float getProgress()
+    {
+        return Float.isNaN(mProgress) ? 0 : mProgress;
+    }
+
+    /**
+     * 根据当前值和范围设置进度
+     *
+     * @param value
+     * @param min   进度为0时候的值
+     * @param max   进度为1时候的值
+     */
+    public void setProgress(float value, float min, float max)
+    {
+        if (max == min)
+            setProgress(value >= max ? 1 : 0);
+        else
+            setProgress((value - min) / (max - min));
+    }
+
+    /**
+     * 设置进度，会在下一帧统一更新属性
+     *
+     * @param progress [0, 1]
+     */
+    public void setProgress(float progress)
+    {
+        progress = Math.max(0, Math.min(progress, 1));
+        if (mProgress == progress)
+            return;
+
+        mProgress = progress;
+        scheduleApply();
+    }
+
+    private void scheduleApply()
+    {
+        if (!mScheduled)
+        {
+            mScheduled = true;
+            if (Build.VERSION.SDK_INT >= 16)
+                mHost.postOnAnimation(mApplyRunnable);
+            else
+                mHost.post(mApplyRunnable);
+        }
+    }
+
+    /**
+     * 立即按照当前进度更新所有属性
+     */
+    public void applyNow()
+    {
+        if (mScheduled)
+        {
+            mScheduled = false;
+            mHost.removeCallbacks(mApplyRunnable);
+        }
+
+        final float progress = getProgress();
+        for (int i = 0; i < mCount; i++)
+        {
+            final float value = mCurves[i].getInterpolation(progress);
+            if (value == mValues[i])
+                continue;
+
+            mValues[i] = value;
+            setProperty(mViews[i], mProperties[i], value);
+        }
+    }
+
+    private static void setProperty(View view, int property, float value)
+    {
+        switch (property)
+        {
+            case PROPERTY_ALPHA:
+                view.setAlpha(value);
+                break;
+            case PROPERTY_SCALE_X:
+                view.setScaleX(value);
+                break;
+            case PROPERTY_SCALE_Y:
+                view.setScaleY(value);
+                break;
+            case PROPERTY_TRANSLATION_X:
+                view.setTranslationX(value);
+                break;
+            case PROPERTY_TRANSLATION_Y:
+                view.setTranslationY(value);
+                break;
+            case PROPERTY_ELEVATION:
+                if (Build.VERSION.SDK_INT >= 21)
+                    view.setElevation(value);
+                break;
+            case PROPERTY_ROTATION:
+                view.setRotation(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static FLookupInterpolator bakeCurve(float[] keyProgress, float[] keyValues, Interpolator interpolator)
+    {
+        final int last = keyProgress.length - 1;
+        final float[] table = new float[CURVE_RESOLUTION + 1];
+
+        int segment = 0;
+        for (int i = 0; i <= CURVE_RESOLUTION; i++)
+        {
+            final float progress = (float) i / CURVE_RESOLUTION;
+            if (progress <= keyProgress[0])
+            {
+                table[i] = keyValues[0];
+                continue;
+            }
+            if (progress >= keyProgress[last])
+            {
+                table[i] = keyValues[last];
+                continue;
+            }
+
+            while (segment < last - 1 && progress > keyProgress[segment + 1])
+            {
+                segment++;
+            }
+
+            final float start = keyProgress[segment];
+            final float end = keyProgress[segment + 1];
+            float fraction = end > start ? (progress - start) / (end - start) : 1;
+            if (interpolator != null)
+                fraction = interpolator.getInterpolation(fraction);
+
+            table[i] = keyValues[segment] + (keyValues[segment + 1] - keyValues[segment]) * fraction;
+        }
+        return new FLookupInterpolator(table);
+    }
+}
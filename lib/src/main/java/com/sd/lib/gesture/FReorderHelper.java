@@ -0,0 +1,678 @@
+package com.sd.lib.gesture;
+
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 拖动排序帮助类，child按照child的顺序依次排列在网格的格子中
+ * <br>
+ * 格子的位置由列数、格子大小、间距和起点计算，根据坐标查找格子不需要遍历child。
+ * 拖动过程中被挤开的child通过translation动画移动到新的格子，靠近边缘的时候按帧自动滚动，
+ * 所有动画和自动滚动都在同一个帧回调中计算
+ */
+public class FReorderHelper
+{
+    private final ViewGroup mViewGroup;
+    private final Callback mCallback;
+
+    private int mColumns = 1;
+    private int mCellWidth;
+    private int mCellHeight;
+    private int mSpacingX;
+    private int mSpacingY;
+    private int mOriginX;
+    private int mOriginY;
+
+    /**
+     * 以格子为下标的child数组，拖动过程中随着位置变化实时更新
+     */
+    private View[] mSlotView = new View[16];
+    private int mSlotCount;
+
+    private View mDragView;
+    private int mDragStartSlot = -1;
+    private int mDragSlot = -1;
+    private float mGrabOffsetX;
+    private float mGrabOffsetY;
+    private float mTouchX;
+    private float mTouchY;
+    private boolean mDropping;
+
+    private View[] mAnimView = new View[4];
+    private FScroller[] mAnimScroller = new FScroller[4];
+    private int mAnimCount;
+
+    private FScroller[] mScrollerPool = new FScroller[4];
+    private int mScrollerPoolSize;
+
+    private int mAutoScrollEdge;
+    private int mAutoScrollMaxSpeed;
+    private boolean mAutoScrolling;
+    private float mAutoScrollRemainX;
+    private float mAutoScrollRemainY;
+    private long mLastFrameTime;
+
+    private FAnimationClock mClock = FAnimationClock.system();
+
+    private boolean mFramePosted;
+    private final Runnable mFrameRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            mFramePosted = false;
+            onFrame();
+        }
+    };
+
+    public FReorderHelper(ViewGroup viewGroup, Callback callback)
+    {
+        if (viewGroup == null || callback == null)
+            throw new NullPointerException();
+
+        mViewGroup = viewGroup;
+        mCallback = callback;
+    }
+
+    /**
+     * 设置格子布局
+     *
+     * @param columns    列数
+     * @param cellWidth  格子宽度
+     * @param cellHeight 格子高度
+     */
+    public void setSlotLayout(int columns, int cellWidth, int cellHeight)
+    {
+        if (columns <= 0)
+            throw new IllegalArgumentException("columns must > 0");
+        if (cellWidth <= 0 || cellHeight <= 0)
+            throw new IllegalArgumentException("cell size must > 0");
+
+        mColumns = columns;
+        mCellWidth = cellWidth;
+        mCellHeight = cellHeight;
+    }
+
+    /**
+     * 设置格子之间的间距
+     *
+     * @param spacingX
+     * @param spacingY
+     */
+    public void setSlotSpacing(int spacingX, int spacingY)
+    {
+        mSpacingX = spacingX;
+        mSpacingY = spacingY;
+    }
+
+    /**
+     * 设置第一个格子的左上角位置，相对于ViewGroup内容的坐标
+     *
+     * @param x
+     * @param y
+     */
+    public void setSlotOrigin(int x, int y)
+    {
+        mOriginX = x;
+        mOriginY = y;
+    }
+
+    /**
+     * 设置边缘自动滚动
+     *
+     * @param edgeSize 边缘区域大小(像素)，小于等于0-不自动滚动
+     * @param maxSpeed 手指到达ViewGroup边界时候的滚动速度(像素/秒)，越靠近边界速度越快
+     */
+    public void setAutoScroll(int edgeSize, int maxSpeed)
+    {
+        mAutoScrollEdge = edgeSize;
+        mAutoScrollMaxSpeed = Math.abs(maxSpeed);
+    }
+
+    /**
+     * 设置计算自动滚动距离的时钟
+     *
+     * @param clock null-使用系统时钟
+     */
+    public void setClock(FAnimationClock clock)
+    {
+        mClock = clock != null ? clock : FAnimationClock.system();
+    }
+
+    /**
+     * 返回格子的左边位置，相对于ViewGroup内容的坐标
+     *
+     * @param slot
+     * @return
+     */
+    public int getSlotLeft(int slot)
+    {
+        return mOriginX + (slot % mColumns) * (mCellWidth + mSpacingX);
+    }
+
+    /**
+     * 返回格子的顶部位置，相对于ViewGroup内容的坐标
+     *
+     * @param slot
+     * @return
+     */
+    public int getSlotTop(int slot)
+    {
+        return mOriginY + (slot / mColumns) * (mCellHeight + mSpacingY);
+    }
+
+    /**
+     * 返回坐标所在的格子
+     *
+     * @param x 相对于ViewGroup内容的坐标
+     * @param y 相对于ViewGroup内容的坐标
+     * @return -1-不在任何格子中
+     */
+    public int getSlotAt(int x, int y)
+    {
+        if (mCellWidth <= 0 || mCellHeight <= 0)
+            return -1;
+
+        final int offsetX = x - mOriginX;
+        final int offsetY = y - mOriginY;
+        if (offsetX < 0 || offsetY < 0)
+            return -1;
+
+        final int stepX = mCellWidth + mSpacingX;
+        final int stepY = mCellHeight + mSpacingY;
+
+        final int column = offsetX / stepX;
+        if (column >= mColumns || offsetX - column * stepX >= mCellWidth)
+            return -1;
+
+        final int row = offsetY / stepY;
+        if (offsetY - row * stepY >= mCellHeight)
+            return -1;
+
+        final int slot = row * mColumns + column;
+        return slot < mSlotCount ? slot : -1;
+    }
+
+    /**
+     * 返回正在拖动的child
+     *
+     * @return
+     */
+    public View getDragView()
+    {
+        return mDragView;
+    }
+
+    /**
+     * 是否正在拖动或者正在执行松手后的动画
+     *
+     * @return
+     */
+    public boolean isReordering()
+    {
+        return mDragView != null;
+    }
+
+    /**
+     * 开始拖动child，会按照当前child的顺序重新建立格子索引
+     *
+     * @param child
+     * @param x     手指相对于ViewGroup的坐标
+     * @param y     手指相对于ViewGroup的坐标
+     * @return true-开始拖动
+     */
+    public boolean startDrag(View child, float x, float y)
+    {
+        if (child == null)
+            throw new NullPointerException();
+        if (mDragView != null || mCellWidth <= 0 || mCellHeight <= 0)
+            return false;
+
+        final int slot = mViewGroup.indexOfChild(child);
+        if (slot < 0)
+            return false;
+
+        syncSlots();
+
+        mDragView = child;
+        mDragStartSlot = slot;
+        mDragSlot = slot;
+        mDropping = false;
+
+        mTouchX = x;
+        mTouchY = y;
+        mGrabOffsetX = x + mViewGroup.getScrollX() - child.getLeft() - child.getTranslationX();
+        mGrabOffsetY = y + mViewGroup.getScrollY() - child.getTop() - child.getTranslationY();
+
+        abortAnimation(child);
+        mCallback.onDragStart(child, slot);
+        return true;
+    }
+
+    /**
+     * 手指移动
+     *
+     * @param x 手指相对于ViewGroup的坐标
+     * @param y 手指相对于ViewGroup的坐标
+     */
+    public void drag(float x, float y)
+    {
+        if (mDragView == null || mDropping)
+            return;
+
+        mTouchX = x;
+        mTouchY = y;
+        updateDragPosition();
+
+        if (!mAutoScrolling && (getAutoScrollSpeedX() != 0 || getAutoScrollSpeedY() != 0))
+        {
+            mAutoScrolling = true;
+            mAutoScrollRemainX = 0;
+            mAutoScrollRemainY = 0;
+            mLastFrameTime = mClock.nanoTime();
+            postFrame();
+        }
+    }
+
+    /**
+     * 松手，拖动的child动画移动到最终的格子，动画结束后回调{@link Callback#onReorder(View, int, int)}
+     */
+    public void stopDrag()
+    {
+        if (mDragView == null || mDropping)
+            return;
+
+        mDropping = true;
+        mAutoScrolling = false;
+        moveToSlot(mDragView, mDragSlot);
+
+        if (mAnimCount == 0)
+            finishDrop();
+    }
+
+    /**
+     * 立即结束所有动画，child直接移动到最终的位置
+     */
+    public void finish()
+    {
+        if (mDragView == null)
+            return;
+
+        mDropping = true;
+        mAutoScrolling = false;
+        mFramePosted = false;
+        mViewGroup.removeCallbacks(mFrameRunnable);
+
+        while (mAnimCount > 0)
+        {
+            mAnimScroller[0].abortAnimation();
+            removeAnimation(0);
+        }
+
+        for (int i = 0; i < mSlotCount; i++)
+        {
+            final View view = mSlotView[i];
+            view.setTranslationX(getSlotLeft(i) - view.getLeft());
+            view.setTranslationY(getSlotTop(i) - view.getTop());
+        }
+
+        finishDrop();
+    }
+
+    private void syncSlots()
+    {
+        final int count = mViewGroup.getChildCount();
+        if (mSlotView.length < count)
+            mSlotView = new View[Math.max(count, mSlotView.length * 2)];
+
+        for (int i = 0; i < count; i++)
+        {
+            mSlotView[i] = mViewGroup.getChildAt(i);
+        }
+        for (int i = count; i < mSlotCount; i++)
+        {
+            mSlotView[i] = null;
+        }
+        mSlotCount = count;
+    }
+
+    /**
+     * 根据手指位置更新拖动child的位置，并检查是否需要移动到新的格子
+     */
+    private void updateDragPosition()
+    {
+        final View child = mDragView;
+        final float left = mTouchX + mViewGroup.getScrollX() - mGrabOffsetX;
+        final float top = mTouchY + mViewGroup.getScrollY() - mGrabOffsetY;
+        child.setTranslationX(left - child.getLeft());
+        child.setTranslationY(top - child.getTop());
+
+        final int centerX = (int) (left + child.getWidth() / 2f);
+        final int centerY = (int) (top + child.getHeight() / 2f);
+        final int slot = getSlotAt(centerX, centerY);
+        if (slot >= 0 && slot != mDragSlot && mCallback.canMoveTo(child, slot))
+            moveDragSlot(slot);
+    }
+
+    private void moveDragSlot(int slot)
+    {
+        final int from = mDragSlot;
+        final View[] views = mSlotView;
+        if (from < slot)
+        {
+            for (int i = from; i < slot; i++)
+            {
+                views[i] = views[i + 1];
+                moveToSlot(views[i], i);
+            }
+        } else
+        {
+            for (int i = from; i > slot; i--)
+            {
+                views[i] = views[i - 1];
+                moveToSlot(views[i], i);
+            }
+        }
+
+        views[slot] = mDragView;
+        mDragSlot = slot;
+        mCallback.onSwap(mDragView, from, slot);
+    }
+
+    /**
+     * 动画移动child到指定的格子
+     *
+     * @param child
+     * @param slot
+     */
+    private void moveToSlot(View child, int slot)
+    {
+        abortAnimation(child);
+
+        final int startX = (int) child.getTranslationX();
+        final int startY = (int) child.getTranslationY();
+        final int endX = getSlotLeft(slot) - child.getLeft();
+        final int endY = getSlotTop(slot) - child.getTop();
+
+        final FScroller scroller = obtainScroller();
+        if (!scroller.scrollTo(startX, startY, endX, endY, -1))
+        {
+            recycleScroller(scroller);
+            child.setTranslationX(endX);
+            child.setTranslationY(endY);
+            return;
+        }
+
+        if (mAnimCount == mAnimView.length)
+        {
+            final int capacity = mAnimCount * 2;
+
+            final View[] views = new View[capacity];
+            System.arraycopy(mAnimView, 0, views, 0, mAnimCount);
+            mAnimView = views;
+
+            final FScroller[] scrollers = new FScroller[capacity];
+            System.arraycopy(mAnimScroller, 0, scrollers, 0, mAnimCount);
+            mAnimScroller = scrollers;
+        }
+
+        mAnimView[mAnimCount] = child;
+        mAnimScroller[mAnimCount] = scroller;
+        mAnimCount++;
+        postFrame();
+    }
+
+    private void abortAnimation(View child)
+    {
+        for (int i = 0; i < mAnimCount; i++)
+        {
+            if (mAnimView[i] == child)
+            {
+                mAnimScroller[i].abortAnimation();
+                removeAnimation(i);
+                return;
+            }
+        }
+    }
+
+    private void removeAnimation(int index)
+    {
+        final FScroller scroller = mAnimScroller[index];
+
+        final int last = mAnimCount - 1;
+        mAnimView[index] = mAnimView[last];
+        mAnimScroller[index] = mAnimScroller[last];
+        mAnimView[last] = null;
+        mAnimScroller[last] = null;
+        mAnimCount = last;
+
+        recycleScroller(scroller);
+    }
+
+    private FScroller obtainScroller()
+    {
+        if (mScrollerPoolSize > 0)
+        {
+            mScrollerPoolSize--;
+            final FScroller scroller = mScrollerPool[mScrollerPoolSize];
+            mScrollerPool[mScrollerPoolSize] = null;
+            return scroller;
+        }
+
+        final FScroller scroller = new FScroller(mViewGroup.getContext());
+        scroller.setMaxScrollDistance(Math.max(mCellWidth + mSpacingX, mCellHeight + mSpacingY) * 2);
+        return scroller;
+    }
+
+    private void recycleScroller(FScroller scroller)
+    {
+        if (mScrollerPoolSize == mScrollerPool.length)
+        {
+            final FScroller[] pool = new FScroller[mScrollerPoolSize * 2];
+            System.arraycopy(mScrollerPool, 0, pool, 0, mScrollerPoolSize);
+            mScrollerPool = pool;
+        }
+
+        mScrollerPool[mScrollerPoolSize] = scroller;
+        mScrollerPoolSize++;
+    }
+
+    private void postFrame()
+    {
+        if (mFramePosted)
+            return;
+
+        mFramePosted = true;
+        if (Build.VERSION.SDK_INT >= 16)
+            mViewGroup.postOnAnimation(mFrameRunnable);
+        else
+            mViewGroup.post(mFrameRunnable);
+    }
+
+    private void onFrame()
+    {
+        int i = 0;
+        while (i < mAnimCount)
+        {
+            final View view = mAnimView[i];
+            final FScroller scroller = mAnimScroller[i];
+            final boolean compute = scroller.computeScrollOffset();
+
+            view.setTranslationX(scroller.getCurrX());
+            view.setTranslationY(scroller.getCurrY());
+
+            if (compute)
+                i++;
+            else
+                removeAnimation(i);
+        }
+
+        if (mAutoScrolling)
+            mAutoScrolling = computeAutoScroll();
+
+        if (mAnimCount > 0 || mAutoScrolling)
+            postFrame();
+        else if (mDropping)
+            finishDrop();
+    }
+
+    /**
+     * 计算一帧的自动滚动
+     *
+     * @return true-需要继续自动滚动
+     */
+    private boolean computeAutoScroll()
+    {
+        final float speedX = getAutoScrollSpeedX();
+        final float speedY = getAutoScrollSpeedY();
+        if (speedX == 0 && speedY == 0)
+            return false;
+
+        final long now = mClock.nanoTime();
+        // 限制单帧时长，避免卡顿之后一次滚动过多
+        final long elapsed = Math.min(now - mLastFrameTime, 50000000L);
+        mLastFrameTime = now;
+
+        mAutoScrollRemainX += speedX * elapsed / 1000000000f;
+        mAutoScrollRemainY += speedY * elapsed / 1000000000f;
+
+        final int dx = (int) mAutoScrollRemainX;
+        final int dy = (int) mAutoScrollRemainY;
+        if (dx == 0 && dy == 0)
+            return true;
+
+        mAutoScrollRemainX -= dx;
+        mAutoScrollRemainY -= dy;
+
+        if (!mCallback.onAutoScroll(dx, dy))
+            return false;
+
+        updateDragPosition();
+        return true;
+    }
+
+    private float getAutoScrollSpeedX()
+    {
+        return getAutoScrollSpeed(mTouchX, mViewGroup.getWidth());
+    }
+
+    private float getAutoScrollSpeedY()
+    {
+        return getAutoScrollSpeed(mTouchY, mViewGroup.getHeight());
+    }
+
+    /**
+     * 根据手指进入边缘的深度计算滚动速度
+     *
+     * @param position 手指坐标
+     * @param size     ViewGroup大小
+     * @return
+     */
+    private float getAutoScrollSpeed(float position, int size)
+    {
+        final int edge = mAutoScrollEdge;
+        if (edge <= 0 || mAutoScrollMaxSpeed == 0 || size < edge * 2)
+            return 0;
+
+        float depth;
+        if (position < edge)
+            depth = -(edge - position) / edge;
+        else if (position > size - edge)
+            depth = (position - (size - edge)) / edge;
+        else
+            return 0;
+
+        depth = Math.max(-1, Math.min(depth, 1));
+        // 平方曲线，刚进入边缘的时候速度较慢，便于精确控制
+        return depth * Math.abs(depth) * mAutoScrollMaxSpeed;
+    }
+
+    private void finishDrop()
+    {
+        final View child = mDragView;
+        final int from = mDragStartSlot;
+        final int to = mDragSlot;
+
+        // 把translation转换为布局偏移，ViewGroup按照新的顺序重新布局之前child保持在新的格子
+        for (int i = 0; i < mSlotCount; i++)
+        {
+            final View view = mSlotView[i];
+            final int offsetX = (int) view.getTranslationX();
+            final int offsetY = (int) view.getTranslationY();
+            if (offsetX != 0)
+                view.offsetLeftAndRight(offsetX);
+            if (offsetY != 0)
+                view.offsetTopAndBottom(offsetY);
+            view.setTranslationX(0);
+            view.setTranslationY(0);
+            mSlotView[i] = null;
+        }
+        mSlotCount = 0;
+
+        mDragView = null;
+        mDragStartSlot = -1;
+        mDragSlot = -1;
+        mDropping = false;
+
+        mCallback.onReorder(child, from, to);
+    }
+
+    public abstract static class Callback
+    {
+        /**
+         * 开始拖动
+         *
+         * @param child
+         * @param slot
+         */
+        public void onDragStart(View child, int slot)
+        {
+        }
+
+        /**
+         * 拖动的child是否可以移动到某个格子
+         *
+         * @param child
+         * @param slot
+         * @return
+         */
+        public boolean canMoveTo(View child, int slot)
+        {
+            return true;
+        }
+
+        /**
+         * 拖动的child移动到了新的格子，中间的child会动画移动
+         *
+         * @param child
+         * @param fromSlot
+         * @param toSlot
+         */
+        public void onSwap(View child, int fromSlot, int toSlot)
+        {
+        }
+
+        /**
+         * 自动滚动，需要滚动ViewGroup本身(例如{@link View#scrollBy(int, int)})，拖动的child会跟随滚动保持在手指下
+         *
+         * @param dx
+         * @param dy
+         * @return true-滚动成功，false-已经无法滚动，停止自动滚动直到手指再次移动
+         */
+        public boolean onAutoScroll(int dx, int dy)
+        {
+            return false;
+        }
+
+        /**
+         * 拖动结束，所有动画已经完成，child已经通过布局偏移停留在新的格子，
+         * 需要在这里更新数据和child的顺序，让后续的布局和新的顺序一致
+         *
+         * @param child
+         * @param fromSlot 开始拖动时候的格子
+         * @param toSlot   最终的格子，和fromSlot相同表示位置没有变化
+         */
+        public abstract void onReorder(View child, int fromSlot, int toSlot);
+    }
+}
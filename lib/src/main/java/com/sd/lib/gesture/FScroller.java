@@ -1,15 +1,25 @@
 package com.sd.lib.gesture;
 
 import android.content.Context;
+import android.view.ViewConfiguration;
 import android.view.animation.Interpolator;
 import android.widget.Scroller;
 
+import com.sd.lib.gesture.core.GestureMath;
+
 /**
  * 滚动帮助类
  */
 public class FScroller
 {
+    private static final int DEFAULT_MAX_SCROLL_DURATION = 400;
+    private static final int DEFAULT_MIN_SCROLL_DURATION = 200;
+
     private ScrollerApi mScrollerApi;
+    /**
+     * 创建时的api处理对象，重置参数的时候恢复
+     */
+    private final ScrollerApi mDefaultScrollerApi;
     /**
      * 最大滚动距离
      */
@@ -17,17 +27,36 @@ public class FScroller
     /**
      * 最大滚动时长
      */
-    private int mMaxScrollDuration = 400;
+    private int mMaxScrollDuration = DEFAULT_MAX_SCROLL_DURATION;
     /**
      * 最小滚动时长
      */
-    private int mMinScrollDuration = 200;
+    private int mMinScrollDuration = DEFAULT_MIN_SCROLL_DURATION;
 
     private int mLastX;
     private int mLastY;
     private boolean mIsFinished = true;
 
+    private FAnimationClock mClock = FAnimationClock.system();
+
+    /**
+     * 惯性滚动累加的时间窗口(毫秒)，小于等于0-不累加
+     */
+    private int mFlingAccumulateWindow;
+    /**
+     * 惯性滚动累加后的最大速率
+     */
+    private int mMaxFlingVelocity = Integer.MAX_VALUE;
+
+    private boolean mIsFling;
+    private float mFlingVelocityX;
+    private float mFlingVelocityY;
+    private float mRemainVelocityX;
+    private float mRemainVelocityY;
+    private long mRemainVelocityTime;
+
     private Callback mCallback;
+    private FFrameMonitor mFrameMonitor;
 
     public FScroller(Context context)
     {
@@ -42,6 +71,7 @@ public class FScroller
     public FScroller(ScrollerApi scrollerApi)
     {
         setScrollerApi(scrollerApi);
+        mDefaultScrollerApi = scrollerApi;
     }
 
     /**
@@ -54,6 +84,26 @@ public class FScroller
         return mIsFinished;
     }
 
+    /**
+     * 返回最近一次计算的x值
+     *
+     * @return
+     */
+    public final int getCurrX()
+    {
+        return mLastX;
+    }
+
+    /**
+     * 返回最近一次计算的y值
+     *
+     * @return
+     */
+    public final int getCurrY()
+    {
+        return mLastY;
+    }
+
     /**
      * 设置回调对象
      *
@@ -64,6 +114,29 @@ public class FScroller
         mCallback = callback;
     }
 
+    /**
+     * 设置帧监控对象，滚动过程中记录{@link #computeScrollOffset()}相邻两次调用的间隔
+     *
+     * @param monitor null-不监控
+     */
+    public void setFrameMonitor(FFrameMonitor monitor)
+    {
+        if (mFrameMonitor == monitor)
+            return;
+
+        if (mFrameMonitor != null)
+            mFrameMonitor.onAnimationFinish();
+
+        mFrameMonitor = monitor;
+        if (monitor != null && !mIsFinished)
+            monitor.onAnimationStart();
+    }
+
+    public FFrameMonitor getFrameMonitor()
+    {
+        return mFrameMonitor;
+    }
+
     /**
      * 设置api处理对象
      *
@@ -75,6 +148,40 @@ public class FScroller
             throw new NullPointerException();
 
         mScrollerApi = scrollerApi;
+        if (scrollerApi instanceof FTrajectoryScrollerApi)
+            ((FTrajectoryScrollerApi) scrollerApi).setClock(mClock);
+    }
+
+    /**
+     * 设置时钟，如果api处理对象是{@link FTrajectoryScrollerApi}，也会使用这个时钟
+     * <br>
+     * 默认的api处理对象使用{@link Scroller}内部的时钟，不受这个设置影响
+     *
+     * @param clock
+     */
+    public void setClock(FAnimationClock clock)
+    {
+        if (clock == null)
+            throw new NullPointerException();
+
+        mClock = clock;
+        if (mScrollerApi instanceof FTrajectoryScrollerApi)
+            ((FTrajectoryScrollerApi) mScrollerApi).setClock(clock);
+    }
+
+    public FAnimationClock getClock()
+    {
+        return mClock;
+    }
+
+    /**
+     * 返回api处理对象
+     *
+     * @return
+     */
+    public ScrollerApi getScrollerApi()
+    {
+        return mScrollerApi;
     }
 
     /**
@@ -107,6 +214,44 @@ public class FScroller
         mMinScrollDuration = duration;
     }
 
+    /**
+     * 重置所有参数、剩余速率和回调对象，恢复到创建时的状态，只能在滚动结束后调用
+     */
+    void resetConfig()
+    {
+        mMaxScrollDistance = 0;
+        mMaxScrollDuration = DEFAULT_MAX_SCROLL_DURATION;
+        mMinScrollDuration = DEFAULT_MIN_SCROLL_DURATION;
+        mCallback = null;
+        mFrameMonitor = null;
+
+        mFlingAccumulateWindow = 0;
+        mMaxFlingVelocity = Integer.MAX_VALUE;
+        mIsFling = false;
+        mFlingVelocityX = 0;
+        mFlingVelocityY = 0;
+        mRemainVelocityX = 0;
+        mRemainVelocityY = 0;
+        mRemainVelocityTime = 0;
+
+        mClock = FAnimationClock.system();
+        setScrollerApi(mDefaultScrollerApi);
+        mScrollerApi.setFriction(ViewConfiguration.getScrollFriction());
+    }
+
+    /**
+     * 设置惯性滚动累加，在上一次惯性滚动还未结束或者被停止后的时间窗口内，再次同方向惯性滚动的时候，
+     * 会把上一次剩余的速率累加到新的速率上。需要api处理对象实现{@link VelocityScrollerApi}
+     *
+     * @param window      时间窗口(毫秒)，小于等于0-不累加
+     * @param maxVelocity 累加后的最大速率
+     */
+    public final void setFlingAccumulation(int window, int maxVelocity)
+    {
+        mFlingAccumulateWindow = window;
+        mMaxFlingVelocity = Math.abs(maxVelocity);
+    }
+
     public final void setFriction(float friction)
     {
         mScrollerApi.setFriction(friction);
@@ -158,6 +303,9 @@ public class FScroller
 
         if (scroll)
         {
+            mIsFling = false;
+            mRemainVelocityX = 0;
+            mRemainVelocityY = 0;
             mLastX = startX;
             mLastY = startY;
 
@@ -193,12 +341,83 @@ public class FScroller
             mLastX = startX;
             mLastY = startY;
 
+            if (mFlingAccumulateWindow > 0)
+            {
+                if (!mIsFinished)
+                {
+                    saveRemainVelocity();
+                    // 直接停止api处理对象，不改变当前的滚动状态
+                    mScrollerApi.abortAnimation();
+                }
+
+                final long elapsed = (mClock.nanoTime() - mRemainVelocityTime) / 1000000;
+                if (elapsed <= mFlingAccumulateWindow)
+                {
+                    velocityX = accumulateVelocity(velocityX, mRemainVelocityX);
+                    velocityY = accumulateVelocity(velocityY, mRemainVelocityY);
+                }
+                mRemainVelocityX = 0;
+                mRemainVelocityY = 0;
+            }
+
+            mIsFling = true;
+            mFlingVelocityX = velocityX;
+            mFlingVelocityY = velocityY;
+
             mScrollerApi.fling(startX, startY, velocityX, velocityY, minX, maxX, minY, maxY);
             updateFinished();
         }
         return fling;
     }
 
+    private int accumulateVelocity(int velocity, float remain)
+    {
+        if (velocity == 0 || remain == 0 || (velocity > 0) != (remain > 0))
+            return velocity;
+
+        final long result = velocity + (long) remain;
+        return (int) Math.max(-mMaxFlingVelocity, Math.min(result, mMaxFlingVelocity));
+    }
+
+    /**
+     * 保存当前惯性滚动剩余的速率
+     */
+    private void saveRemainVelocity()
+    {
+        mRemainVelocityX = 0;
+        mRemainVelocityY = 0;
+
+        if (!mIsFling || !(mScrollerApi instanceof VelocityScrollerApi))
+            return;
+
+        final float initial = (float) Math.hypot(mFlingVelocityX, mFlingVelocityY);
+        if (initial == 0)
+            return;
+
+        final float remain = ((VelocityScrollerApi) mScrollerApi).getCurrVelocity();
+        mRemainVelocityX = remain * mFlingVelocityX / initial;
+        mRemainVelocityY = remain * mFlingVelocityY / initial;
+        mRemainVelocityTime = mClock.nanoTime();
+    }
+
+    /**
+     * 如果起始位置超出范围，滚动回到范围内，一般在带阻力的拖动松手后调用
+     *
+     * @param startX
+     * @param startY
+     * @param minX
+     * @param maxX
+     * @param minY
+     * @param maxY
+     * @return true-提交滚动任务成功
+     */
+    public final boolean springBack(int startX, int startY, int minX, int maxX, int minY, int maxY)
+    {
+        final int endX = Math.max(minX, Math.min(startX, maxX));
+        final int endY = Math.max(minY, Math.min(startY, maxY));
+        return scrollTo(startX, startY, endX, endY, -1);
+    }
+
     /**
      * 计算滚动距离
      *
@@ -206,24 +425,34 @@ public class FScroller
      */
     public final boolean computeScrollOffset()
     {
-        final boolean compute = mScrollerApi.computeScrollOffset();
+        FGestureTrace.begin(FGestureTrace.SECTION_SCROLLER_COMPUTE);
+        try
+        {
+            final boolean compute = mScrollerApi.computeScrollOffset();
 
-        final int currX = mScrollerApi.getCurrX();
-        final int currY = mScrollerApi.getCurrY();
+            final int currX = mScrollerApi.getCurrX();
+            final int currY = mScrollerApi.getCurrY();
 
-        if (compute)
-        {
-            if (currX != mLastX || currY != mLastY)
+            if (compute)
             {
-                onScrollerCompute(mLastX, mLastY, currX, currY);
+                if (mFrameMonitor != null)
+                    mFrameMonitor.onFrame(mClock.nanoTime());
+
+                if (currX != mLastX || currY != mLastY)
+                {
+                    onScrollerCompute(mLastX, mLastY, currX, currY);
+                }
             }
-        }
 
-        mLastX = currX;
-        mLastY = currY;
+            mLastX = currX;
+            mLastY = currY;
 
-        updateFinished();
-        return compute;
+            updateFinished();
+            return compute;
+        } finally
+        {
+            FGestureTrace.end(FGestureTrace.SECTION_SCROLLER_COMPUTE);
+        }
     }
 
     /**
@@ -233,6 +462,9 @@ public class FScroller
      */
     public final boolean abortAnimation()
     {
+        if (mFlingAccumulateWindow > 0 && !mIsFinished)
+            saveRemainVelocity();
+
         mScrollerApi.abortAnimation();
         return updateFinished(true);
     }
@@ -260,6 +492,9 @@ public class FScroller
 
     protected void onScrollerStart()
     {
+        if (mFrameMonitor != null)
+            mFrameMonitor.onAnimationStart();
+
         if (mCallback != null)
             mCallback.onScrollerStart();
     }
@@ -272,6 +507,9 @@ public class FScroller
 
     protected void onScrollerFinish(boolean isAbort)
     {
+        if (mFrameMonitor != null)
+            mFrameMonitor.onAnimationFinish();
+
         if (mCallback != null)
             mCallback.onScrollerFinish(isAbort);
     }
@@ -288,24 +526,7 @@ public class FScroller
      */
     public static int computeDuration(int dx, int dy, int distanceMax, int durationMax, int durationMin)
     {
-        durationMax = Math.abs(durationMax);
-        durationMin = Math.abs(durationMin);
-        distanceMax = Math.abs(distanceMax);
-
-        if (distanceMax == 0)
-            return durationMin;
-
-        if (durationMin > durationMax)
-            throw new IllegalArgumentException();
-
-        final float distance = (float) Math.sqrt(Math.abs(dx * dx) + Math.abs(dy * dy));
-        if (distance == 0)
-            return 0;
-
-        final float disPercent = distance / distanceMax;
-        final int duration = (int) ((disPercent * durationMin) + durationMin);
-
-        return Math.min(duration, durationMax);
+        return GestureMath.computeDuration(dx, dy, distanceMax, durationMax, durationMin);
     }
 
     public interface Callback
@@ -352,7 +573,20 @@ public class FScroller
         int getCurrY();
     }
 
-    private static class SimpleScrollerApi implements FScroller.ScrollerApi
+    /**
+     * 可以返回当前速率的api处理对象
+     */
+    public interface VelocityScrollerApi extends ScrollerApi
+    {
+        /**
+         * 返回当前速率(像素/秒)
+         *
+         * @return
+         */
+        float getCurrVelocity();
+    }
+
+    private static class SimpleScrollerApi implements VelocityScrollerApi
     {
         private final Scroller mScroller;
 
@@ -408,5 +642,11 @@ public class FScroller
         {
             return mScroller.getCurrY();
         }
+
+        @Override
+        public float getCurrVelocity()
+        {
+            return mScroller.getCurrVelocity();
+        }
     }
 }
@@ -0,0 +1,261 @@
+package com.sd.lib.gesture;
+
+/**
+ * 笔画缓存，在添加点的时候实时抽稀，只保存能够描述笔画形状的点
+ * <br>
+ * 以最后一个保存的点为锚点，新的点和锚点的距离小于最小距离会被丢弃；
+ * 锚点之后的第一个点确定当前线段的方向，锚点到新的点的方向和线段方向的夹角小于最大夹角的时候，新的点替换候选点，
+ * 否则候选点被保存并成为新的锚点。
+ * 直线部分只保留两端，曲线部分按照弯曲程度保留，坐标保存在按需扩容的float数组中
+ */
+public class FStrokeBuffer
+{
+    private float[] mX;
+    private float[] mY;
+    private int mCount;
+
+    private boolean mHasCandidate;
+    private float mCandidateX;
+    private float mCandidateY;
+    /**
+     * 当前线段的方向，即锚点到锚点之后第一个点的向量，候选点被替换的时候不变，避免缓慢弯曲的曲线被当成直线
+     */
+    private float mDirectionX;
+    private float mDirectionY;
+
+    private int mInputCount;
+
+    private float mMinDistance;
+    private float mMaxAngle;
+    private float mCosMaxAngle;
+
+    public FStrokeBuffer()
+    {
+        this(64);
+    }
+
+    /**
+     * @param capacity 初始容量
+     */
+    public FStrokeBuffer(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must > 0");
+
+        mX = new float[capacity];
+        mY = new float[capacity];
+        setTolerance(2, 5);
+    }
+
+    /**
+     * 设置抽稀的参数
+     *
+     * @param minDistance 和上一个保存的点的最小距离，小于等于0-不按距离丢弃
+     * @param maxAngle    方向变化小于这个角度的点会被合并，小于等于0-不按方向合并
+     */
+    public void setTolerance(float minDistance, float maxAngle)
+    {
+        mMinDistance = Math.max(0, minDistance);
+        mMaxAngle = Math.max(0, maxAngle);
+        mCosMaxAngle = (float) Math.cos(Math.toRadians(mMaxAngle));
+    }
+
+    public float getMinDistance()
+    {
+        return mMinDistance;
+    }
+
+    public float getMaxAngle()
+    {
+        return mMaxAngle;
+    }
+
+    /**
+     * 添加当前触摸位置
+     *
+     * @param touchHelper
+     */
+    public void addPoint(FTouchHelper touchHelper)
+    {
+        addPoint(touchHelper.getCurrentX(), touchHelper.getCurrentY());
+    }
+
+    /**
+     * 添加点
+     *
+     * @param x
+     * @param y
+     */
+    public void addPoint(float x, float y)
+    {
+        mInputCount++;
+
+        if (mCount == 0)
+        {
+            append(x, y);
+            return;
+        }
+
+        final float anchorX = mX[mCount - 1];
+        final float anchorY = mY[mCount - 1];
+        final float dx = x - anchorX;
+        final float dy = y - anchorY;
+        final float distanceSquare = dx * dx + dy * dy;
+
+        if (distanceSquare == 0 || distanceSquare < mMinDistance * mMinDistance)
+            return;
+
+        if (!mHasCandidate)
+        {
+            startSegment(x, y);
+            return;
+        }
+
+        if (mMaxAngle > 0)
+        {
+            final float directionX = mDirectionX;
+            final float directionY = mDirectionY;
+            final float directionSquare = directionX * directionX + directionY * directionY;
+
+            // cos(夹角) = 点积 / (|a| * |b|)，两边平方避免开方
+            final float dot = directionX * dx + directionY * dy;
+            final float threshold = mCosMaxAngle * mCosMaxAngle * directionSquare * distanceSquare;
+            if (dot > 0 && dot * dot >= threshold)
+            {
+                mCandidateX = x;
+                mCandidateY = y;
+                return;
+            }
+        }
+
+        append(mCandidateX, mCandidateY);
+        startSegment(x, y);
+    }
+
+    /**
+     * 笔画结束，保存候选点
+     */
+    public void finish()
+    {
+        if (mHasCandidate)
+        {
+            mHasCandidate = false;
+            append(mCandidateX, mCandidateY);
+        }
+    }
+
+    /**
+     * 清空所有点，保留已经分配的数组
+     */
+    public void reset()
+    {
+        mCount = 0;
+        mHasCandidate = false;
+        mInputCount = 0;
+    }
+
+    /**
+     * 返回点数，包括还未确定的最后一个点
+     *
+     * @return
+     */
+    public int getPointCount()
+    {
+        return mHasCandidate ? mCount + 1 : mCount;
+    }
+
+    public float getX(int index)
+    {
+        if (index == mCount && mHasCandidate)
+            return mCandidateX;
+        if (index < 0 || index >= mCount)
+            throw new IndexOutOfBoundsException();
+        return mX[index];
+    }
+
+    public float getY(int index)
+    {
+        if (index == mCount && mHasCandidate)
+            return mCandidateY;
+        if (index < 0 || index >= mCount)
+            throw new IndexOutOfBoundsException();
+        return mY[index];
+    }
+
+    /**
+     * 把所有点按照x, y交替排列复制到数组中
+     *
+     * @param out 长度至少为{@link #getPointCount()}的2倍
+     * @return 点数
+     */
+    public int copyPoints(float[] out)
+    {
+        final int count = getPointCount();
+        if (out.length < count * 2)
+            throw new IllegalArgumentException("out length must >= " + count * 2);
+
+        for (int i = 0; i < mCount; i++)
+        {
+            out[i * 2] = mX[i];
+            out[i * 2 + 1] = mY[i];
+        }
+        if (mHasCandidate)
+        {
+            out[mCount * 2] = mCandidateX;
+            out[mCount * 2 + 1] = mCandidateY;
+        }
+        return count;
+    }
+
+    /**
+     * 返回添加过的点数，包括被抽稀丢弃的点
+     *
+     * @return
+     */
+    public int getInputCount()
+    {
+        return mInputCount;
+    }
+
+    /**
+     * 返回坐标数组占用的字节数
+     *
+     * @return
+     */
+    public int getRetainedBytes()
+    {
+        return (mX.length + mY.length) * 4;
+    }
+
+    /**
+     * 以最后一个保存的点为锚点开始新的线段
+     */
+    private void startSegment(float x, float y)
+    {
+        mCandidateX = x;
+        mCandidateY = y;
+        mDirectionX = x - mX[mCount - 1];
+        mDirectionY = y - mY[mCount - 1];
+        mHasCandidate = true;
+    }
+
+    private void append(float x, float y)
+    {
+        if (mCount == mX.length)
+        {
+            final int capacity = mCount + (mCount >> 1) + 1;
+
+            final float[] xs = new float[capacity];
+            System.arraycopy(mX, 0, xs, 0, mCount);
+            mX = xs;
+
+            final float[] ys = new float[capacity];
+            System.arraycopy(mY, 0, ys, 0, mCount);
+            mY = ys;
+        }
+
+        mX[mCount] = x;
+        mY[mCount] = y;
+        mCount++;
+    }
+}
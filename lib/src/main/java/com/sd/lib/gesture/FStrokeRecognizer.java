@@ -0,0 +1,604 @@
+package com.sd.lib.gesture;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 笔画识别，在后台线程中把笔画和模板进行匹配，识别结果在主线程回调
+ * <br>
+ * 主线程只把坐标写入单生产者单消费者的环形缓冲区，不加锁也不会阻塞；
+ * 后台线程读取坐标，笔画结束的时候(或者每隔一定的点数)把笔画重采样、归一化之后和所有模板计算相似度。
+ * 后台线程在收到每个点的时候累加路径长度，识别的时候按照累计长度二分查找重采样的位置，
+ * 所以每次阶段识别的开销只和模板数量以及点数的对数有关，不会随着笔画变长重新遍历所有的点
+ * <br>
+ * 一般在{@link FGestureManager.Callback#onEventConsume(android.view.MotionEvent)}中调用{@link #addPoint(FTouchHelper)}，
+ * 在{@link FGestureManager.Callback#onEventFinish(android.view.VelocityTracker, android.view.MotionEvent)}中调用{@link #endStroke()}
+ */
+public class FStrokeRecognizer
+{
+    /**
+     * 重采样之后的点数
+     */
+    private static final int SAMPLE_COUNT = 32;
+    /**
+     * 归一化之后两个笔画的最大平均距离
+     */
+    private static final float MAX_DISTANCE = (float) (0.5 * Math.sqrt(2));
+
+    private static final int TYPE_POINT = 0;
+    private static final int TYPE_END = 1;
+
+    private static final int MSG_RESULT = 1;
+
+    //---------- ring buffer ----------
+    private final int mCapacity;
+    private final int mMask;
+    private final byte[] mRingType;
+    private final int[] mRingStroke;
+    private final float[] mRingX;
+    private final float[] mRingY;
+    /**
+     * 生产者写入位置，只有主线程写
+     */
+    private volatile long mTail;
+    /**
+     * 消费者读取位置，只有后台线程写
+     */
+    private volatile long mHead;
+
+    //---------- producer ----------
+    private int mStrokeId;
+    private boolean mStroking;
+    private volatile int mDroppedCount;
+    /**
+     * 缓冲区满的时候结束标记写不进去，保存在这里由后台线程处理
+     */
+    private final AtomicInteger mLateEndStroke = new AtomicInteger(-1);
+
+    //---------- consumer ----------
+    private volatile Template[] mTemplates = new Template[0];
+    private volatile float mMinScore = 0.8f;
+    private volatile int mPartialInterval;
+
+    private Thread mWorker;
+    private volatile boolean mWorkerWaiting;
+    private volatile boolean mReleased;
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+
+    public FStrokeRecognizer(Callback callback)
+    {
+        this(callback, 4096);
+    }
+
+    /**
+     * @param callback
+     * @param capacity 环形缓冲区可以保存的点数，会向上取整为2的幂
+     */
+    public FStrokeRecognizer(Callback callback, int capacity)
+    {
+        if (callback == null)
+            throw new NullPointerException();
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must > 0");
+
+        int size = 1;
+        while (size < capacity)
+        {
+            size <<= 1;
+        }
+
+        mCapacity = size;
+        mMask = size - 1;
+        mRingType = new byte[size];
+        mRingStroke = new int[size];
+        mRingX = new float[size];
+        mRingY = new float[size];
+
+        mCallback = callback;
+        mHandler = new Handler(Looper.getMainLooper())
+        {
+            @Override
+            public void handleMessage(Message msg)
+            {
+                if (msg.what == MSG_RESULT && !mReleased)
+                    mCallback.onRecognized((Result) msg.obj);
+            }
+        };
+    }
+
+    /**
+     * 添加模板
+     *
+     * @param name
+     * @param points 模板笔画的坐标，按照x, y交替排列，至少2个点
+     */
+    public synchronized void addTemplate(String name, float[] points)
+    {
+        if (name == null || points == null)
+            throw new NullPointerException();
+        if (points.length < 4 || points.length % 2 != 0)
+            throw new IllegalArgumentException("points must contain at least 2 (x, y) pairs");
+
+        final int count = points.length / 2;
+        final float[] lengths = new float[count];
+        for (int i = 1; i < count; i++)
+        {
+            lengths[i] = lengths[i - 1] + distance(points[i * 2 - 2], points[i * 2 - 1], points[i * 2], points[i * 2 + 1]);
+        }
+
+        final float[] normalized = new float[SAMPLE_COUNT * 2];
+        normalize(points, lengths, count, normalized, new float[SAMPLE_COUNT * 2]);
+
+        final Template[] old = mTemplates;
+        final Template[] templates = new Template[old.length + 1];
+        System.arraycopy(old, 0, templates, 0, old.length);
+        templates[old.length] = new Template(name, normalized);
+        mTemplates = templates;
+    }
+
+    /**
+     * 清空模板
+     */
+    public synchronized void clearTemplates()
+    {
+        mTemplates = new Template[0];
+    }
+
+    /**
+     * 设置最低相似度，低于这个值的结果{@link Result#getName()}返回null，默认0.8
+     *
+     * @param minScore [0, 1]
+     */
+    public void setMinScore(float minScore)
+    {
+        mMinScore = minScore;
+    }
+
+    /**
+     * 设置笔画进行中每隔多少个点识别一次，0-只在笔画结束的时候识别，默认0
+     *
+     * @param interval
+     */
+    public void setPartialInterval(int interval)
+    {
+        mPartialInterval = Math.max(0, interval);
+    }
+
+    /**
+     * 返回因为缓冲区已满而丢弃的点数
+     *
+     * @return
+     */
+    public int getDroppedCount()
+    {
+        return mDroppedCount;
+    }
+
+    /**
+     * 开始一个新的笔画，如果上一个笔画还未结束会先结束它
+     *
+     * @return 笔画id
+     */
+    public int beginStroke()
+    {
+        if (mStroking)
+            endStroke();
+
+        mStrokeId++;
+        mStroking = true;
+        ensureWorker();
+        return mStrokeId;
+    }
+
+    /**
+     * 添加当前触摸位置，如果还没有开始笔画会自动开始
+     *
+     * @param touchHelper
+     */
+    public void addPoint(FTouchHelper touchHelper)
+    {
+        addPoint(touchHelper.getCurrentX(), touchHelper.getCurrentY());
+    }
+
+    /**
+     * 添加点，如果还没有开始笔画会自动开始
+     *
+     * @param x
+     * @param y
+     */
+    public void addPoint(float x, float y)
+    {
+        if (!mStroking)
+            beginStroke();
+
+        if (!offer(TYPE_POINT, x, y))
+            mDroppedCount++;
+    }
+
+    /**
+     * 结束当前笔画，后台线程识别完成后回调{@link Callback#onRecognized(Result)}
+     */
+    public void endStroke()
+    {
+        if (!mStroking)
+            return;
+
+        mStroking = false;
+        if (!offer(TYPE_END, 0, 0))
+        {
+            mLateEndStroke.set(mStrokeId);
+            wakeWorker();
+        }
+    }
+
+    /**
+     * 停止后台线程，不再回调识别结果
+     */
+    public void release()
+    {
+        mReleased = true;
+        mHandler.removeMessages(MSG_RESULT);
+
+        final Thread worker = mWorker;
+        if (worker != null)
+        {
+            mWorker = null;
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void ensureWorker()
+    {
+        if (mWorker != null || mReleased)
+            return;
+
+        mWorker = new Thread(new Worker(), FStrokeRecognizer.class.getSimpleName());
+        mWorker.setDaemon(true);
+        mWorker.start();
+    }
+
+    /**
+     * 生产者写入，缓冲区满的时候直接返回false
+     */
+    private boolean offer(int type, float x, float y)
+    {
+        final long tail = mTail;
+        if (tail - mHead >= mCapacity)
+            return false;
+
+        final int index = (int) (tail & mMask);
+        mRingType[index] = (byte) type;
+        mRingStroke[index] = mStrokeId;
+        mRingX[index] = x;
+        mRingY[index] = y;
+
+        // volatile写保证上面的数据先对消费者可见
+        mTail = tail + 1;
+        wakeWorker();
+        return true;
+    }
+
+    private void wakeWorker()
+    {
+        if (mWorkerWaiting)
+        {
+            final Thread worker = mWorker;
+            if (worker != null)
+                LockSupport.unpark(worker);
+        }
+    }
+
+    private final class Worker implements Runnable
+    {
+        private float[] mPoints = new float[256];
+        /**
+         * 从起点到每个点的路径长度，和mPoints一起增长
+         */
+        private float[] mLengths = new float[128];
+        private int mPointCount;
+        private int mStroke = -1;
+        private boolean mFinished;
+
+        private final float[] mSample = new float[SAMPLE_COUNT * 2];
+        private final float[] mScratch = new float[SAMPLE_COUNT * 2];
+
+        @Override
+        public void run()
+        {
+            while (!mReleased)
+            {
+                final long tail = mTail;
+                long head = mHead;
+                if (head == tail)
+                {
+                    checkLateEnd();
+
+                    mWorkerWaiting = true;
+                    if (mTail == head && mLateEndStroke.get() < 0 && !mReleased)
+                        LockSupport.park(this);
+                    mWorkerWaiting = false;
+                    continue;
+                }
+
+                while (head < tail)
+                {
+                    final int index = (int) (head & mMask);
+                    final int type = mRingType[index];
+                    final int stroke = mRingStroke[index];
+                    final float x = mRingX[index];
+                    final float y = mRingY[index];
+                    head++;
+                    // 数据读取完成后再释放位置给生产者
+                    mHead = head;
+
+                    if (stroke != mStroke)
+                        startStroke(stroke);
+
+                    if (type == TYPE_POINT)
+                        onPoint(x, y);
+                    else
+                        finishStroke();
+                }
+            }
+        }
+
+        private void startStroke(int stroke)
+        {
+            if (!mFinished && mStroke >= 0 && mPointCount > 0)
+                recognize(true);
+
+            mStroke = stroke;
+            mPointCount = 0;
+            mFinished = false;
+        }
+
+        private void onPoint(float x, float y)
+        {
+            if (mFinished)
+                return;
+
+            if (mPointCount == mLengths.length)
+            {
+                final float[] points = new float[mPoints.length * 2];
+                System.arraycopy(mPoints, 0, points, 0, mPoints.length);
+                mPoints = points;
+
+                final float[] lengths = new float[mLengths.length * 2];
+                System.arraycopy(mLengths, 0, lengths, 0, mLengths.length);
+                mLengths = lengths;
+            }
+
+            final int index = mPointCount;
+            mPoints[index * 2] = x;
+            mPoints[index * 2 + 1] = y;
+            mLengths[index] = index == 0 ? 0 : mLengths[index - 1] + distance(mPoints[index * 2 - 2], mPoints[index * 2 - 1], x, y);
+            mPointCount++;
+
+            final int interval = mPartialInterval;
+            if (interval > 0 && mPointCount % interval == 0)
+                recognize(false);
+        }
+
+        private void finishStroke()
+        {
+            if (mFinished)
+                return;
+
+            mFinished = true;
+            recognize(true);
+        }
+
+        private void checkLateEnd()
+        {
+            final int stroke = mLateEndStroke.getAndSet(-1);
+            if (stroke >= 0 && stroke == mStroke)
+                finishStroke();
+        }
+
+        private void recognize(boolean isFinal)
+        {
+            if (mPointCount < 2)
+                return;
+
+            final Template[] templates = mTemplates;
+            if (templates.length == 0)
+                return;
+
+            normalize(mPoints, mLengths, mPointCount, mSample, mScratch);
+
+            int bestIndex = -1;
+            float bestDistance = Float.MAX_VALUE;
+            for (int i = 0; i < templates.length; i++)
+            {
+                final float distance = averageDistance(mSample, templates[i].mPoints);
+                if (distance < bestDistance)
+                {
+                    bestDistance = distance;
+                    bestIndex = i;
+                }
+            }
+
+            final float score = Math.max(0, 1 - bestDistance / MAX_DISTANCE);
+            final String name = score >= mMinScore ? templates[bestIndex].mName : null;
+
+            final Result result = new Result(mStroke, name, score, isFinal);
+            mHandler.obtainMessage(MSG_RESULT, result).sendToTarget();
+        }
+    }
+
+    /**
+     * 把笔画重采样为{@link #SAMPLE_COUNT}个等间距的点，平移到重心为原点，并按照包围盒的最大边长缩放到单位大小
+     * <br>
+     * 每个采样点按照累计长度二分查找所在的线段，开销为O({@link #SAMPLE_COUNT} * log(count))
+     *
+     * @param points  x, y交替排列的坐标
+     * @param lengths 从起点到每个点的路径长度
+     * @param count   点数
+     * @param out     输出
+     * @param scratch 临时数组
+     */
+    private static void normalize(float[] points, float[] lengths, int count, float[] out, float[] scratch)
+    {
+        final float length = lengths[count - 1];
+        for (int k = 0; k < SAMPLE_COUNT; k++)
+        {
+            final float target = k == SAMPLE_COUNT - 1 ? length : length * k / (SAMPLE_COUNT - 1);
+
+            // 找到最后一个累计长度不大于目标长度的点
+            int low = 0;
+            int high = count - 1;
+            while (low < high)
+            {
+                final int mid = (low + high + 1) >>> 1;
+                if (lengths[mid] <= target)
+                    low = mid;
+                else
+                    high = mid - 1;
+            }
+
+            if (low == count - 1)
+            {
+                scratch[k * 2] = points[low * 2];
+                scratch[k * 2 + 1] = points[low * 2 + 1];
+            } else
+            {
+                // lengths[low + 1]大于目标长度，所以线段长度大于0
+                final float fraction = (target - lengths[low]) / (lengths[low + 1] - lengths[low]);
+                scratch[k * 2] = points[low * 2] + (points[low * 2 + 2] - points[low * 2]) * fraction;
+                scratch[k * 2 + 1] = points[low * 2 + 1] + (points[low * 2 + 3] - points[low * 2 + 1]) * fraction;
+            }
+        }
+
+        float centerX = 0;
+        float centerY = 0;
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int k = 0; k < SAMPLE_COUNT; k++)
+        {
+            final float x = scratch[k * 2];
+            final float y = scratch[k * 2 + 1];
+            centerX += x;
+            centerY += y;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        centerX /= SAMPLE_COUNT;
+        centerY /= SAMPLE_COUNT;
+
+        final float size = Math.max(maxX - minX, maxY - minY);
+        final float scale = size > 0 ? 1 / size : 1;
+        for (int k = 0; k < SAMPLE_COUNT; k++)
+        {
+            out[k * 2] = (scratch[k * 2] - centerX) * scale;
+            out[k * 2 + 1] = (scratch[k * 2 + 1] - centerY) * scale;
+        }
+    }
+
+    private static float averageDistance(float[] a, float[] b)
+    {
+        float sum = 0;
+        for (int i = 0; i < SAMPLE_COUNT; i++)
+        {
+            sum += distance(a[i * 2], a[i * 2 + 1], b[i * 2], b[i * 2 + 1]);
+        }
+        return sum / SAMPLE_COUNT;
+    }
+
+    private static float distance(float x1, float y1, float x2, float y2)
+    {
+        final float dx = x2 - x1;
+        final float dy = y2 - y1;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static final class Template
+    {
+        private final String mName;
+        private final float[] mPoints;
+
+        private Template(String name, float[] points)
+        {
+            mName = name;
+            mPoints = points;
+        }
+    }
+
+    /**
+     * 识别结果
+     */
+    public static final class Result
+    {
+        private final int mStrokeId;
+        private final String mName;
+        private final float mScore;
+        private final boolean mIsFinal;
+
+        private Result(int strokeId, String name, float score, boolean isFinal)
+        {
+            mStrokeId = strokeId;
+            mName = name;
+            mScore = score;
+            mIsFinal = isFinal;
+        }
+
+        /**
+         * 笔画id，和{@link #beginStroke()}返回的值一致
+         *
+         * @return
+         */
+        public int getStrokeId()
+        {
+            return mStrokeId;
+        }
+
+        /**
+         * 最匹配的模板名称，相似度低于最低相似度的时候返回null
+         *
+         * @return
+         */
+        public String getName()
+        {
+            return mName;
+        }
+
+        /**
+         * 和最匹配模板的相似度[0, 1]
+         *
+         * @return
+         */
+        public float getScore()
+        {
+            return mScore;
+        }
+
+        /**
+         * true-笔画已经结束，false-笔画进行中的阶段结果
+         *
+         * @return
+         */
+        public boolean isFinal()
+        {
+            return mIsFinal;
+        }
+    }
+
+    public interface Callback
+    {
+        /**
+         * 识别结果，在主线程回调
+         *
+         * @param result
+         */
+        void onRecognized(Result result);
+    }
+}
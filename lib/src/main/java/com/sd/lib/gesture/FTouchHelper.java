@@ -8,6 +8,10 @@ import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 
+import com.sd.lib.gesture.core.GestureMath;
+import com.sd.lib.gesture.core.TouchHistory;
+import com.sd.lib.gesture.core.TouchTracker;
+
 import java.util.LinkedList;
 import java.util.List;
 
@@ -16,14 +20,7 @@ import java.util.List;
  */
 public class FTouchHelper
 {
-    private float mCurrentX;
-    private float mCurrentY;
-
-    private float mLastX;
-    private float mLastY;
-
-    private float mDownX;
-    private float mDownY;
+    private final TouchTracker mTracker = new TouchTracker();
 
     /**
      * 处理触摸事件
@@ -32,51 +29,73 @@ public class FTouchHelper
      */
     public void processTouchEvent(MotionEvent event)
     {
-        mLastX = mCurrentX;
-        mLastY = mCurrentY;
+        mTracker.onEvent(event.getAction(), event.getEventTime(), event.getRawX(), event.getRawY());
+    }
 
-        mCurrentX = event.getRawX();
-        mCurrentY = event.getRawY();
+    /**
+     * 重置所有坐标
+     */
+    void reset()
+    {
+        mTracker.reset();
+    }
 
-        switch (event.getAction())
-        {
-            case MotionEvent.ACTION_DOWN:
-                mDownX = mCurrentX;
-                mDownY = mCurrentY;
-                break;
-            default:
-                break;
-        }
+    /**
+     * 复制另一个对象的所有坐标和历史
+     */
+    void copyFrom(FTouchHelper other)
+    {
+        mTracker.copyFrom(other.mTracker);
+    }
+
+    /**
+     * 设置上一次和当前的坐标
+     */
+    void setPosition(float lastX, float lastY, float currentX, float currentY)
+    {
+        mTracker.setPosition(lastX, lastY, currentX, currentY);
+    }
+
+    /**
+     * 返回本次手势的历史坐标，可以按时间窗口查询位移、路径长度、平均速度和转向角度，例如最近80毫秒移动的距离
+     * <br>
+     * 历史在{@link MotionEvent#ACTION_DOWN}的时候清空，坐标为相对屏幕的坐标
+     *
+     * @return
+     */
+    public TouchHistory getHistory()
+    {
+        return mTracker.getHistory();
     }
 
     public float getCurrentX()
     {
-        return mCurrentX;
+        return mTracker.getCurrentX();
     }
 
     public float getCurrentY()
     {
-        return mCurrentY;
+        return mTracker.getCurrentY();
     }
 
     public float getLastX()
     {
-        return mLastX;
+        return mTracker.getLastX();
     }
 
     public float getLastY()
     {
-        return mLastY;
+        return mTracker.getLastY();
     }
 
     public float getDownX()
     {
-        return mDownX;
+        return mTracker.getDownX();
     }
 
     public float getDownY()
     {
-        return mDownY;
+        return mTracker.getDownY();
     }
 
     //---------- Delta Start ----------
@@ -88,7 +107,7 @@ public class FTouchHelper
      */
     public float getDeltaX()
     {
-        return mCurrentX - mLastX;
+        return mTracker.getDeltaX();
     }
 
     /**
@@ -96,7 +115,7 @@ public class FTouchHelper
      */
     public float getDeltaY()
     {
-        return mCurrentY - mLastY;
+        return mTracker.getDeltaY();
     }
 
     /**
@@ -106,7 +125,7 @@ public class FTouchHelper
      */
     public float getDeltaXFromDown()
     {
-        return mCurrentX - mDownX;
+        return mTracker.getDeltaXFromDown();
     }
 
     /**
@@ -116,7 +135,7 @@ public class FTouchHelper
      */
     public float getDeltaYFromDown()
     {
-        return mCurrentY - mDownY;
+        return mTracker.getDeltaYFromDown();
     }
 
     //---------- Delta End ----------
@@ -131,13 +150,7 @@ public class FTouchHelper
      */
     public double getDegreeX()
     {
-        final float dx = getDeltaX();
-        if (dx == 0)
-            return 0;
-
-        final float dy = getDeltaY();
-        final float angle = Math.abs(dy) / Math.abs(dx);
-        return Math.toDegrees(Math.atan(angle));
+        return mTracker.getDegreeX();
     }
 
     /**
@@ -147,13 +160,7 @@ public class FTouchHelper
      */
     public double getDegreeY()
     {
-        final float dy = getDeltaY();
-        if (dy == 0)
-            return 0;
-
-        final float dx = getDeltaX();
-        final float angle = Math.abs(dx) / Math.abs(dy);
-        return Math.toDegrees(Math.atan(angle));
+        return mTracker.getDegreeY();
     }
 
     /**
@@ -163,13 +170,7 @@ public class FTouchHelper
      */
     public double getDegreeXFromDown()
     {
-        final float dx = getDeltaXFromDown();
-        if (dx == 0)
-            return 0;
-
-        final float dy = getDeltaYFromDown();
-        final float angle = Math.abs(dy) / Math.abs(dx);
-        return Math.toDegrees(Math.atan(angle));
+        return mTracker.getDegreeXFromDown();
     }
 
     /**
@@ -179,13 +180,7 @@ public class FTouchHelper
      */
     public double getDegreeYFromDown()
     {
-        final float dy = getDeltaYFromDown();
-        if (dy == 0)
-            return 0;
-
-        final float dx = getDeltaXFromDown();
-        final float angle = Math.abs(dx) / Math.abs(dy);
-        return Math.toDegrees(Math.atan(angle));
+        return mTracker.getDegreeYFromDown();
     }
 
     //---------- Degree End ----------
@@ -227,18 +222,22 @@ public class FTouchHelper
      */
     public static int getLegalDelta(int current, int min, int max, int delta)
     {
-        if (delta == 0)
-            return 0;
+        return GestureMath.getLegalDelta(current, min, max, delta);
+    }
 
-        final int future = current + delta;
-        if (future < min)
-        {
-            delta += (min - future);
-        } else if (future > max)
-        {
-            delta += (max - future);
-        }
-        return delta;
+    /**
+     * 返回带阻力的增量，超出范围的部分会有橡皮筋效果的阻力，越往外阻力越大，最多超出maxOverScroll
+     *
+     * @param current       当前值
+     * @param min           最小值
+     * @param max           最大值
+     * @param delta         增量
+     * @param maxOverScroll 最大可以超出范围的距离，小于等于0的时候和{@link #getLegalDelta(int, int, int, int)}一致
+     * @return
+     */
+    public static int getResistedDelta(int current, int min, int max, int delta, int maxOverScroll)
+    {
+        return GestureMath.getResistedDelta(current, min, max, delta, maxOverScroll);
     }
 
     /**
@@ -278,7 +277,25 @@ public class FTouchHelper
      */
     public static boolean isViewUnderScreen(View view, int x, int y)
     {
-        final int[] location = new int[2];
+        return isViewUnderScreen(view, x, y, new int[2]);
+    }
+
+    /**
+     * view是否处于某个坐标点下面，相对屏幕的坐标
+     *
+     * @param view
+     * @param x
+     * @param y
+     * @param location 调用方持有的长度至少为2的数组，用来保存view的屏幕坐标，可以重复使用避免创建对象
+     * @return
+     */
+    public static boolean isViewUnderScreen(View view, int x, int y, int[] location)
+    {
+        if (location == null)
+            throw new NullPointerException();
+        if (location.length < 2)
+            throw new IllegalArgumentException("location length must >= 2");
+
         view.getLocationOnScreen(location);
         return x >= location[0] && x < location[0] + view.getWidth()
                 && y >= location[1] && y < location[1] + view.getHeight();
@@ -0,0 +1,549 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.view.ViewConfiguration;
+import android.view.animation.Interpolator;
+
+/**
+ * 预计算轨迹的{@link FScroller.ScrollerApi}
+ * <br>
+ * 开始滚动的时候按照帧间隔把整个轨迹采样到数组中，每一帧只需要按下标读取位置，
+ * 并且开始滚动后就可以知道最终位置和总时长。物理计算方式和{@link android.widget.Scroller}一致
+ * <br>
+ * 帧间隔默认为屏幕的刷新间隔，计算位置的时候经过的时间会对齐到最近的一帧，高刷新率屏幕上每一帧的步长保持均匀
+ * <br>
+ * 使用方式：scroller.setScrollerApi(new FTrajectoryScrollerApi(context, null))
+ */
+public class FTrajectoryScrollerApi implements FScroller.VelocityScrollerApi
+{
+    private static final float GRAVITY_EARTH = 9.80665f;
+    private static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+    private static final float INFLEXION = 0.35f;
+    private static final float START_TENSION = 0.5f;
+    private static final float END_TENSION = 1.0f;
+    private static final float P1 = START_TENSION * INFLEXION;
+    private static final float P2 = 1.0f - END_TENSION * (1.0f - INFLEXION);
+
+    private static final int NB_SAMPLES = 100;
+    private static final float[] SPLINE_POSITION = new float[NB_SAMPLES + 1];
+
+    static
+    {
+        float x_min = 0.0f;
+        for (int i = 0; i < NB_SAMPLES; i++)
+        {
+            final float alpha = (float) i / NB_SAMPLES;
+
+            float x_max = 1.0f;
+            float x, tx, coef;
+            while (true)
+            {
+                x = x_min + (x_max - x_min) / 2.0f;
+                coef = 3.0f * x * (1.0f - x);
+                tx = coef * ((1.0f - x) * P1 + x * P2) + x * x * x;
+                if (Math.abs(tx - alpha) < 1E-5)
+                    break;
+
+                if (tx > alpha)
+                    x_max = x;
+                else
+                    x_min = x;
+            }
+            SPLINE_POSITION[i] = coef * ((1.0f - x) * START_TENSION + x) + x * x * x;
+        }
+        SPLINE_POSITION[NB_SAMPLES] = 1.0f;
+    }
+
+    /**
+     * 越界回弹的最短时长(毫秒)
+     */
+    private static final int MIN_OVER_SCROLL_DURATION = 200;
+    /**
+     * 越界回弹曲线中到达最远点的时间比例
+     */
+    private static final float OVER_SCROLL_PEAK = 0.4f;
+    /**
+     * 越界回弹曲线，先减速到最远点，再加速减速回到边界
+     */
+    private static final float[] OVER_SCROLL_CURVE = new float[NB_SAMPLES + 1];
+
+    static
+    {
+        for (int i = 0; i <= NB_SAMPLES; i++)
+        {
+            final float u = (float) i / NB_SAMPLES;
+            if (u <= OVER_SCROLL_PEAK)
+            {
+                final float p = 1.0f - u / OVER_SCROLL_PEAK;
+                OVER_SCROLL_CURVE[i] = 1.0f - p * p;
+            } else
+            {
+                final float w = (u - OVER_SCROLL_PEAK) / (1.0f - OVER_SCROLL_PEAK);
+                OVER_SCROLL_CURVE[i] = 1.0f - w * w * (3.0f - 2.0f * w);
+            }
+        }
+    }
+
+    private final Interpolator mInterpolator;
+    private final float mPhysicalCoeff;
+    private float mFlingFriction = ViewConfiguration.getScrollFriction();
+
+    private FAnimationClock mClock = FAnimationClock.system();
+    private long mFramePeriod;
+
+    private int[] mTrajectoryX = new int[32];
+    private int[] mTrajectoryY = new int[32];
+    private int mTrajectorySize;
+
+    private long mStartTime;
+    private int mDuration;
+    private int mFinalX;
+    private int mFinalY;
+
+    private int mCurrX;
+    private int mCurrY;
+    private int mCurrIndex;
+    private boolean mFinished = true;
+
+    private int mOverScrollDistance;
+    private final FlingAxis mFlingAxisX = new FlingAxis();
+    private final FlingAxis mFlingAxisY = new FlingAxis();
+
+    /**
+     * @param context
+     * @param interpolator {@link #startScroll(int, int, int, int, int)}使用的插值器，null-和{@link android.widget.Scroller}默认效果一致
+     */
+    public FTrajectoryScrollerApi(Context context, Interpolator interpolator)
+    {
+        mInterpolator = interpolator != null ? interpolator : FLookupInterpolator.viscousFluid();
+
+        final float ppi = context.getResources().getDisplayMetrics().density * 160.0f;
+        mPhysicalCoeff = GRAVITY_EARTH * 39.37f * ppi * 0.84f;
+        mFramePeriod = FAnimationClock.getFramePeriodNanos(context);
+    }
+
+    /**
+     * 设置时钟
+     *
+     * @param clock
+     */
+    public void setClock(FAnimationClock clock)
+    {
+        if (clock == null)
+            throw new NullPointerException();
+        mClock = clock;
+    }
+
+    /**
+     * 设置采样的帧间隔(纳秒)，默认为屏幕的刷新间隔
+     *
+     * @param period
+     */
+    public void setFramePeriod(long period)
+    {
+        if (period <= 0)
+            throw new IllegalArgumentException("period must > 0");
+        mFramePeriod = period;
+    }
+
+    public long getFramePeriod()
+    {
+        return mFramePeriod;
+    }
+
+    /**
+     * 设置惯性滚动最多可以越过边界的距离，大于0的时候惯性滚动到达边界后会继续越过边界再回弹，
+     * 越界和回弹的轨迹在开始滚动的时候一起计算，整个过程是一个连续的动画
+     *
+     * @param distance 小于等于0-到达边界立即停止
+     */
+    public void setOverScrollDistance(int distance)
+    {
+        mOverScrollDistance = distance;
+    }
+
+    /**
+     * 返回滚动的最终x值
+     *
+     * @return
+     */
+    public int getFinalX()
+    {
+        return mFinalX;
+    }
+
+    /**
+     * 返回滚动的最终y值
+     *
+     * @return
+     */
+    public int getFinalY()
+    {
+        return mFinalY;
+    }
+
+    /**
+     * 返回滚动的总时长(毫秒)
+     *
+     * @return
+     */
+    public int getDuration()
+    {
+        return mDuration;
+    }
+
+    /**
+     * 返回轨迹的采样数量
+     *
+     * @return
+     */
+    public int getTrajectorySize()
+    {
+        return mTrajectorySize;
+    }
+
+    public int getTrajectoryX(int index)
+    {
+        if (index < 0 || index >= mTrajectorySize)
+            throw new IndexOutOfBoundsException();
+        return mTrajectoryX[index];
+    }
+
+    public int getTrajectoryY(int index)
+    {
+        if (index < 0 || index >= mTrajectorySize)
+            throw new IndexOutOfBoundsException();
+        return mTrajectoryY[index];
+    }
+
+    @Override
+    public void setFriction(float friction)
+    {
+        mFlingFriction = friction;
+    }
+
+    @Override
+    public void startScroll(int startX, int startY, int dx, int dy, int duration)
+    {
+        mDuration = duration;
+        mFinalX = startX + dx;
+        mFinalY = startY + dy;
+
+        final int size = prepareTrajectory(duration);
+        for (int i = 0; i < size - 1; i++)
+        {
+            final float input = duration > 0 ? getSampleTime(i) / duration : 1.0f;
+            final float value = mInterpolator.getInterpolation(input);
+            mTrajectoryX[i] = startX + Math.round(value * dx);
+            mTrajectoryY[i] = startY + Math.round(value * dy);
+        }
+        mTrajectoryX[size - 1] = mFinalX;
+        mTrajectoryY[size - 1] = mFinalY;
+
+        start(startX, startY);
+    }
+
+    @Override
+    public void fling(int startX, int startY, int velocityX, int velocityY, int minX, int maxX, int minY, int maxY)
+    {
+        final float velocity = (float) Math.hypot(velocityX, velocityY);
+        final float coeffX = velocity == 0 ? 1.0f : velocityX / velocity;
+        final float coeffY = velocity == 0 ? 1.0f : velocityY / velocity;
+
+        final double totalDistance = getSplineFlingDistance(velocity);
+        mDuration = getSplineFlingDuration(velocity);
+
+        if (mOverScrollDistance > 0 && mDuration > 0)
+        {
+            flingOverScroll(startX, startY,
+                    (int) Math.round(totalDistance * coeffX), (int) Math.round(totalDistance * coeffY),
+                    minX, maxX, minY, maxY);
+            return;
+        }
+
+        mFinalX = clamp(startX + (int) Math.round(totalDistance * coeffX), minX, maxX);
+        mFinalY = clamp(startY + (int) Math.round(totalDistance * coeffY), minY, maxY);
+
+        final int size = prepareTrajectory(mDuration);
+        for (int i = 0; i < size - 1; i++)
+        {
+            final float distanceCoef = mDuration > 0 ? getSplinePosition(getSampleTime(i) / mDuration) : 1.0f;
+            mTrajectoryX[i] = clamp(startX + Math.round(distanceCoef * (mFinalX - startX)), minX, maxX);
+            mTrajectoryY[i] = clamp(startY + Math.round(distanceCoef * (mFinalY - startY)), minY, maxY);
+        }
+        mTrajectoryX[size - 1] = mFinalX;
+        mTrajectoryY[size - 1] = mFinalY;
+
+        start(startX, startY);
+    }
+
+    private void flingOverScroll(int startX, int startY, int distanceX, int distanceY, int minX, int maxX, int minY, int maxY)
+    {
+        final int splineDuration = mDuration;
+        mFlingAxisX.init(startX, distanceX, minX, maxX, splineDuration, mOverScrollDistance);
+        mFlingAxisY.init(startY, distanceY, minY, maxY, splineDuration, mOverScrollDistance);
+
+        mDuration = (int) Math.max(mFlingAxisX.mEndTime, mFlingAxisY.mEndTime);
+        mFinalX = mFlingAxisX.mFinal;
+        mFinalY = mFlingAxisY.mFinal;
+
+        final int size = prepareTrajectory(mDuration);
+        for (int i = 0; i < size - 1; i++)
+        {
+            final float time = getSampleTime(i);
+            mTrajectoryX[i] = mFlingAxisX.getPosition(time);
+            mTrajectoryY[i] = mFlingAxisY.getPosition(time);
+        }
+        mTrajectoryX[size - 1] = mFinalX;
+        mTrajectoryY[size - 1] = mFinalY;
+
+        start(startX, startY);
+    }
+
+    @Override
+    public boolean computeScrollOffset()
+    {
+        if (mFinished)
+            return false;
+
+        // 对齐到最近的一帧，时钟被回拨或者重置的时候停在第一帧
+        final long timePassed = mClock.nanoTime() - mStartTime;
+        final long index = Math.max(0, (timePassed + mFramePeriod / 2) / mFramePeriod);
+        if (index >= mTrajectorySize - 1)
+        {
+            mCurrX = mFinalX;
+            mCurrY = mFinalY;
+            mFinished = true;
+        } else
+        {
+            mCurrIndex = (int) index;
+            mCurrX = mTrajectoryX[mCurrIndex];
+            mCurrY = mTrajectoryY[mCurrIndex];
+        }
+        return true;
+    }
+
+    @Override
+    public float getCurrVelocity()
+    {
+        if (mFinished || mCurrIndex + 1 >= mTrajectorySize)
+            return 0;
+
+        final int dx = mTrajectoryX[mCurrIndex + 1] - mTrajectoryX[mCurrIndex];
+        final int dy = mTrajectoryY[mCurrIndex + 1] - mTrajectoryY[mCurrIndex];
+        return (float) (Math.hypot(dx, dy) * 1000000000L / mFramePeriod);
+    }
+
+    @Override
+    public void abortAnimation()
+    {
+        mCurrX = mFinalX;
+        mCurrY = mFinalY;
+        mFinished = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return mFinished;
+    }
+
+    @Override
+    public int getCurrX()
+    {
+        return mCurrX;
+    }
+
+    @Override
+    public int getCurrY()
+    {
+        return mCurrY;
+    }
+
+    private void start(int startX, int startY)
+    {
+        mCurrX = startX;
+        mCurrY = startY;
+        mCurrIndex = 0;
+        mStartTime = mClock.nanoTime();
+        mFinished = false;
+    }
+
+    /**
+     * 返回第index个采样的时间(毫秒)
+     */
+    private float getSampleTime(int index)
+    {
+        return index * mFramePeriod / 1000000f;
+    }
+
+    /**
+     * 根据时长准备轨迹数组，返回采样数量(最后一个采样为最终位置)
+     */
+    private int prepareTrajectory(int duration)
+    {
+        final int size = (int) (Math.max(duration, 0) * 1000000L / mFramePeriod) + 2;
+        if (mTrajectoryX.length < size)
+        {
+            final int capacity = Math.max(size, mTrajectoryX.length * 2);
+            mTrajectoryX = new int[capacity];
+            mTrajectoryY = new int[capacity];
+        }
+        mTrajectorySize = size;
+        return size;
+    }
+
+    private double getSplineDeceleration(float velocity)
+    {
+        return Math.log(INFLEXION * Math.abs(velocity) / (mFlingFriction * mPhysicalCoeff));
+    }
+
+    private int getSplineFlingDuration(float velocity)
+    {
+        final double l = getSplineDeceleration(velocity);
+        final double decelMinusOne = DECELERATION_RATE - 1.0;
+        return (int) (1000.0 * Math.exp(l / decelMinusOne));
+    }
+
+    private double getSplineFlingDistance(float velocity)
+    {
+        final double l = getSplineDeceleration(velocity);
+        final double decelMinusOne = DECELERATION_RATE - 1.0;
+        return mFlingFriction * mPhysicalCoeff * Math.exp(DECELERATION_RATE / decelMinusOne * l);
+    }
+
+    private static float getSplinePosition(float t)
+    {
+        final int index = (int) (NB_SAMPLES * t);
+        if (index >= NB_SAMPLES)
+            return 1.0f;
+
+        final float t_inf = (float) index / NB_SAMPLES;
+        final float t_sup = (float) (index + 1) / NB_SAMPLES;
+        final float d_inf = SPLINE_POSITION[index];
+        final float d_sup = SPLINE_POSITION[index + 1];
+        final float velocityCoef = (d_sup - d_inf) / (t_sup - t_inf);
+        return d_inf + (t - t_inf) * velocityCoef;
+    }
+
+    private static int clamp(int value, int min, int max)
+    {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private static float lookup(float[] table, float t)
+    {
+        if (t <= 0)
+            return table[0];
+        if (t >= 1)
+            return table[NB_SAMPLES];
+
+        final float position = t * NB_SAMPLES;
+        final int index = (int) position;
+        return table[index] + (table[index + 1] - table[index]) * (position - index);
+    }
+
+    /**
+     * 某个方向上带越界回弹的惯性滚动参数
+     */
+    private static final class FlingAxis
+    {
+        private int mStart;
+        private int mDistance;
+        private int mSplineDuration;
+
+        /**
+         * 到达边界的时间(毫秒)，小于0表示不会越界
+         */
+        private float mCrossTime;
+        private int mBound;
+        private float mOverScroll;
+        private float mOverScrollDuration;
+        /**
+         * 起始位置已经越界并且没有速率，直接从起始位置回弹到边界
+         */
+        private boolean mSpringBack;
+
+        private float mEndTime;
+        private int mFinal;
+
+        void init(int start, int distance, int min, int max, int splineDuration, int overScrollDistance)
+        {
+            mStart = start;
+            mDistance = distance;
+            mSplineDuration = splineDuration;
+            mCrossTime = -1;
+            mSpringBack = false;
+            mEndTime = distance == 0 ? 0 : splineDuration;
+
+            final int future = start + distance;
+            if (future >= min && future <= max)
+            {
+                mFinal = future;
+                return;
+            }
+
+            mBound = future < min ? min : max;
+            mFinal = mBound;
+
+            if (distance == 0)
+            {
+                // 没有移动距离，无法按照样条曲线计算到达边界的时间，直接回弹
+                mSpringBack = true;
+                mCrossTime = 0;
+                mOverScroll = start - mBound;
+                mOverScrollDuration = MIN_OVER_SCROLL_DURATION;
+                mEndTime = mOverScrollDuration;
+                return;
+            }
+
+            // 二分查找到达边界的时间
+            final float target = (float) (mBound - start) / distance;
+            float low = 0;
+            float high = 1;
+            for (int i = 0; i < 20; i++)
+            {
+                final float middle = (low + high) / 2;
+                if (getSplinePosition(middle) < target)
+                    low = middle;
+                else
+                    high = middle;
+            }
+            mCrossTime = high * splineDuration;
+
+            // 到达边界时的速率(像素/秒)
+            final float step = 1.0f / NB_SAMPLES;
+            final float slope = (getSplinePosition(Math.min(high + step, 1.0f)) - getSplinePosition(high)) / step;
+            final float velocity = Math.abs(slope * distance / splineDuration * 1000.0f);
+
+            mOverScroll = Math.min(overScrollDistance, velocity / 20.0f);
+            mOverScrollDuration = velocity > 0 ? Math.max(MIN_OVER_SCROLL_DURATION, 5000.0f * mOverScroll / velocity) : MIN_OVER_SCROLL_DURATION;
+            if (future < min)
+                mOverScroll = -mOverScroll;
+
+            mEndTime = mCrossTime + mOverScrollDuration;
+        }
+
+        int getPosition(float time)
+        {
+            if (mCrossTime < 0 || time < mCrossTime)
+            {
+                final float distanceCoef = time >= mSplineDuration ? 1.0f : getSplinePosition(time / mSplineDuration);
+                final int position = mStart + Math.round(distanceCoef * mDistance);
+                return mCrossTime < 0 ? position : (mOverScroll > 0 ? Math.min(position, mBound) : Math.max(position, mBound));
+            }
+
+            if (time >= mEndTime)
+                return mFinal;
+
+            if (mSpringBack)
+            {
+                // 使用回弹曲线中从最远点回到边界的部分
+                final float fraction = time / mOverScrollDuration;
+                return mBound + Math.round(mOverScroll * lookup(OVER_SCROLL_CURVE, OVER_SCROLL_PEAK + (1.0f - OVER_SCROLL_PEAK) * fraction));
+            }
+
+            return mBound + Math.round(mOverScroll * lookup(OVER_SCROLL_CURVE, (time - mCrossTime) / mOverScrollDuration));
+        }
+    }
+}
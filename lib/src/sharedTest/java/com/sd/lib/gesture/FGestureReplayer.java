@@ -0,0 +1,749 @@
+package com.sd.lib.gesture;
+
+import android.os.Debug;
+import android.view.MotionEvent;
+
+/**
+ * 手势回放类，按照录制的事件序列合成{@link MotionEvent}并驱动{@link FGestureManager}，用于单元测试和设备测试
+ * <br>
+ * 事件分发过程模拟ViewGroup的dispatchTouchEvent逻辑
+ * <br>
+ * 开启{@link #setAllocationTracking(boolean)}之后可以统计每个事件和每一帧滚动创建的对象，
+ * 用来检查事件分发过程是否有创建对象。第一次回放会有延迟创建的对象，应该先回放一次预热再检查。
+ * 默认使用{@link Debug}统计，在JVM单元测试中可以通过{@link #setAllocationCounter(AllocationCounter)}换成虚拟机提供的统计
+ */
+public class FGestureReplayer
+{
+    private final FGestureManager mGestureManager;
+
+    private long[] mEventTime = new long[16];
+    private int[] mAction = new int[16];
+    private float[] mX = new float[16];
+    private float[] mY = new float[16];
+    private int mCount;
+
+    private long mRecordStartTime = -1;
+
+    /**
+     * 模拟是否有child消费{@link MotionEvent#ACTION_DOWN}事件
+     */
+    private boolean mChildConsumeDown;
+
+    private boolean mHasChildTarget;
+    private boolean mIgnoreGesture;
+    /**
+     * 当前事件是否交给了{@link FGestureManager}
+     */
+    private boolean mDelivered;
+
+    private boolean mAllocationTracking;
+    private int mAllowAllocationActions;
+    private AllocationCounter mAllocationCounter = new DebugAllocationCounter();
+
+    private final Report mReport = new Report();
+
+    public FGestureReplayer(FGestureManager gestureManager)
+    {
+        if (gestureManager == null)
+            throw new NullPointerException();
+
+        mGestureManager = gestureManager;
+    }
+
+    /**
+     * 设置是否模拟有child消费{@link MotionEvent#ACTION_DOWN}事件
+     * <br>
+     * true-事件先经过{@link FGestureManager#onInterceptTouchEvent(MotionEvent)}，拦截之后才交给{@link FGestureManager#onTouchEvent(MotionEvent)}
+     *
+     * @param consume
+     */
+    public void setChildConsumeDown(boolean consume)
+    {
+        mChildConsumeDown = consume;
+    }
+
+    /**
+     * 设置是否统计创建对象，使用{@link #setAllocationCounter(AllocationCounter)}设置的对象统计当前线程的对象创建，
+     * 开始统计前会先检查是否能统计到对象创建，在不支持统计的环境中{@link Report#verifyNoAllocation()}会直接失败
+     *
+     * @param tracking
+     */
+    public void setAllocationTracking(boolean tracking)
+    {
+        mAllocationTracking = tracking;
+    }
+
+    /**
+     * 设置统计对象创建的方式
+     *
+     * @param counter null-使用{@link Debug#getThreadAllocCount()}统计，在Robolectric中统计不到对象创建
+     */
+    public void setAllocationCounter(AllocationCounter counter)
+    {
+        mAllocationCounter = counter == null ? new DebugAllocationCounter() : counter;
+    }
+
+    /**
+     * 允许某个动作的事件创建对象，{@link Report#verifyNoAllocation()}检查的时候会忽略这些事件。
+     * 例如{@link MotionEvent#ACTION_DOWN}时候的延迟初始化
+     *
+     * @param action
+     */
+    public void allowAllocation(int action)
+    {
+        if (action < 0 || action >= 32)
+            throw new IllegalArgumentException("Illegal action:" + action);
+        mAllowAllocationActions |= 1 << action;
+    }
+
+    /**
+     * 清空允许创建对象的动作
+     */
+    public void clearAllocationAllowlist()
+    {
+        mAllowAllocationActions = 0;
+    }
+
+    /**
+     * 录制事件
+     *
+     * @param event
+     */
+    public void record(MotionEvent event)
+    {
+        if (mRecordStartTime < 0)
+            mRecordStartTime = event.getEventTime();
+
+        addEvent(event.getEventTime() - mRecordStartTime, event.getActionMasked(), event.getRawX(), event.getRawY());
+    }
+
+    /**
+     * 添加事件
+     *
+     * @param time   相对于录制开始的时间(毫秒)
+     * @param action
+     * @param x
+     * @param y
+     */
+    public void addEvent(long time, int action, float x, float y)
+    {
+        if (mCount == mAction.length)
+        {
+            final int capacity = mCount * 2;
+            mEventTime = copyOf(mEventTime, capacity);
+            mAction = copyOf(mAction, capacity);
+            mX = copyOf(mX, capacity);
+            mY = copyOf(mY, capacity);
+        }
+
+        mEventTime[mCount] = time;
+        mAction[mCount] = action;
+        mX[mCount] = x;
+        mY[mCount] = y;
+        mCount++;
+    }
+
+    /**
+     * 添加一次完整的直线滑动手势
+     *
+     * @param time      按下的时间，相对于录制开始的时间(毫秒)
+     * @param fromX
+     * @param fromY
+     * @param toX
+     * @param toY
+     * @param moveCount 移动事件的数量
+     * @param duration  从按下到抬起的时长(毫秒)
+     */
+    public void addSwipe(long time, float fromX, float fromY, float toX, float toY, int moveCount, long duration)
+    {
+        if (moveCount < 0 || duration < 0)
+            throw new IllegalArgumentException("moveCount and duration must >= 0");
+
+        addEvent(time, MotionEvent.ACTION_DOWN, fromX, fromY);
+        for (int i = 1; i <= moveCount; i++)
+        {
+            final float fraction = (float) i / (moveCount + 1);
+            addEvent(time + (long) (duration * fraction), MotionEvent.ACTION_MOVE,
+                    fromX + (toX - fromX) * fraction, fromY + (toY - fromY) * fraction);
+        }
+        addEvent(time + duration, MotionEvent.ACTION_UP, toX, toY);
+    }
+
+    /**
+     * 返回录制的事件数量
+     *
+     * @return
+     */
+    public int getEventCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * 清空录制的事件
+     */
+    public void clear()
+    {
+        mCount = 0;
+        mRecordStartTime = -1;
+    }
+
+    /**
+     * 回放录制的事件
+     *
+     * @param baseTime 回放的起始时间，合成的事件时间为起始时间加上录制的相对时间
+     * @return 回放结果，每次回放都会重置并返回同一个对象
+     */
+    public Report replay(long baseTime)
+    {
+        mReport.reset(mCount);
+        mReport.mAllowAllocationActions = mAllowAllocationActions;
+        mHasChildTarget = false;
+        mIgnoreGesture = false;
+
+        final AllocationCounter counter = mAllocationCounter;
+        final boolean tracking = mAllocationTracking;
+        mReport.mAllocationCounted = tracking && startAllocCounting(counter);
+
+        long downTime = baseTime;
+        for (int i = 0; i < mCount; i++)
+        {
+            final int action = mAction[i];
+            final long eventTime = baseTime + mEventTime[i];
+            if (action == MotionEvent.ACTION_DOWN)
+                downTime = eventTime;
+
+            final MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, mX[i], mY[i], 0);
+
+            if (tracking)
+                counter.begin();
+            final long start = System.nanoTime();
+            dispatchTouchEvent(event);
+            mReport.mEventNanos[i] = System.nanoTime() - start;
+            mReport.mEventAllocations[i] = tracking ? counter.end() : 0;
+            mReport.mEventAction[i] = action;
+
+            capturePosition(event);
+            event.recycle();
+
+            final FGestureManager.State state = mGestureManager.getState();
+            if (state != mReport.mFinalState)
+            {
+                mReport.mStateChangeCount++;
+                mReport.mFinalState = state;
+            }
+        }
+
+        if (tracking)
+            counter.stop();
+
+        return mReport;
+    }
+
+    /**
+     * 在每个事件分发之后记录触摸和滚动的位置，不会租借新的对象
+     *
+     * @param event
+     */
+    private void capturePosition(MotionEvent event)
+    {
+        final FTouchHelper touchHelper = mGestureManager.peekTouchHelper();
+        if (touchHelper != null)
+        {
+            mReport.mFinalTouchX = touchHelper.getCurrentX();
+            mReport.mFinalTouchY = touchHelper.getCurrentY();
+        } else if (mDelivered)
+        {
+            // 共享模式下手势结束的时候触摸对象已经归还，它最后处理的就是当前事件
+            mReport.mFinalTouchX = event.getRawX();
+            mReport.mFinalTouchY = event.getRawY();
+        }
+
+        final FScroller scroller = mGestureManager.peekScroller();
+        if (scroller != null)
+        {
+            mReport.mFinalScrollX = scroller.getCurrX();
+            mReport.mFinalScrollY = scroller.getCurrY();
+        }
+    }
+
+    /**
+     * 按帧推进滚动，直到滚动结束或者达到最大帧数
+     * <br>
+     * 滚动对象需要使用{@link FTrajectoryScrollerApi}并且设置同一个时钟，才能得到确定的结果
+     *
+     * @param clock     手动时钟，每一帧前进{@link FAnimationClock.Manual#getFramePeriod()}
+     * @param maxFrames 最大帧数
+     * @return 回放结果，和最近一次{@link #replay(long)}返回的是同一个对象
+     */
+    public Report runScroller(FAnimationClock.Manual clock, int maxFrames)
+    {
+        final AllocationCounter counter = mAllocationCounter;
+        final boolean tracking = mAllocationTracking;
+        if (!tracking || !startAllocCounting(counter))
+            mReport.mAllocationCounted = false;
+
+        int frames = 0;
+        while (frames < maxFrames)
+        {
+            clock.advanceFrame();
+            frames++;
+
+            if (tracking)
+                counter.begin();
+            final long start = System.nanoTime();
+            final boolean compute = mGestureManager.computeScrollOffset();
+            mReport.mScrollerNanos += System.nanoTime() - start;
+            if (tracking)
+                mReport.mScrollerAllocations += counter.end();
+
+            final FScroller scroller = mGestureManager.peekScroller();
+            if (scroller != null)
+            {
+                mReport.mFinalScrollX = scroller.getCurrX();
+                mReport.mFinalScrollY = scroller.getCurrY();
+            }
+
+            if (!compute)
+                break;
+        }
+
+        if (tracking)
+            counter.stop();
+
+        mReport.mScrollerFrameCount += frames;
+        mReport.mFinalState = mGestureManager.getState();
+        return mReport;
+    }
+
+    private void dispatchTouchEvent(MotionEvent event)
+    {
+        final int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN)
+        {
+            mHasChildTarget = false;
+            mIgnoreGesture = false;
+        }
+
+        mDelivered = false;
+        if (mIgnoreGesture)
+            return;
+
+        mDelivered = true;
+        final boolean intercepted;
+        if (action == MotionEvent.ACTION_DOWN || mHasChildTarget)
+        {
+            intercepted = mGestureManager.onInterceptTouchEvent(event);
+            mReport.mInterceptCount++;
+            if (intercepted)
+                mReport.mInterceptTrueCount++;
+        } else
+        {
+            // 没有child消费事件，后续事件直接交给onTouchEvent
+            intercepted = true;
+        }
+
+        if (action == MotionEvent.ACTION_DOWN && !intercepted && mChildConsumeDown)
+        {
+            mHasChildTarget = true;
+            return;
+        }
+
+        if (mHasChildTarget)
+        {
+            // 拦截事件的这一次child收到ACTION_CANCEL，当前事件不会传给onTouchEvent
+            if (intercepted)
+                mHasChildTarget = false;
+            return;
+        }
+
+        final boolean handled = mGestureManager.onTouchEvent(event);
+        mReport.mTouchCount++;
+        if (handled)
+            mReport.mTouchTrueCount++;
+
+        if (action == MotionEvent.ACTION_DOWN && !handled)
+            mIgnoreGesture = true;
+    }
+
+    /**
+     * 开始统计，并检查当前环境是否真的能统计到对象创建
+     *
+     * @param counter
+     * @return true-支持统计
+     */
+    private static boolean startAllocCounting(AllocationCounter counter)
+    {
+        if (!counter.start())
+            return false;
+
+        counter.begin();
+        sAllocationProbe = new Object();
+        final boolean supported = counter.end() > 0;
+        sAllocationProbe = null;
+
+        if (!supported)
+            counter.stop();
+        return supported;
+    }
+
+    private static volatile Object sAllocationProbe;
+
+    private static long[] copyOf(long[] array, int length)
+    {
+        final long[] result = new long[length];
+        System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+        return result;
+    }
+
+    private static int[] copyOf(int[] array, int length)
+    {
+        final int[] result = new int[length];
+        System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+        return result;
+    }
+
+    private static float[] copyOf(float[] array, int length)
+    {
+        final float[] result = new float[length];
+        System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+        return result;
+    }
+
+    /**
+     * 统计当前线程创建的对象
+     */
+    public interface AllocationCounter
+    {
+        /**
+         * 开始统计
+         *
+         * @return false-当前环境不支持统计
+         */
+        boolean start();
+
+        /**
+         * 开始一段统计
+         */
+        void begin();
+
+        /**
+         * 结束一段统计
+         *
+         * @return 从{@link #begin()}到现在创建的对象，对象个数或者字节数，不包括统计本身的开销
+         */
+        long end();
+
+        /**
+         * 结束统计
+         */
+        void stop();
+    }
+
+    /**
+     * 使用{@link Debug#getThreadAllocCount()}统计对象个数
+     */
+    private static final class DebugAllocationCounter implements AllocationCounter
+    {
+        private int mStart;
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public boolean start()
+        {
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            return true;
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void begin()
+        {
+            mStart = Debug.getThreadAllocCount();
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public long end()
+        {
+            return Debug.getThreadAllocCount() - mStart;
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void stop()
+        {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    /**
+     * 回放结果
+     */
+    public static final class Report
+    {
+        private long[] mEventNanos = new long[0];
+        private long[] mEventAllocations = new long[0];
+        private int[] mEventAction = new int[0];
+        private int mEventCount;
+        private int mAllowAllocationActions;
+        private boolean mAllocationCounted;
+
+        private int mInterceptCount;
+        private int mInterceptTrueCount;
+        private int mTouchCount;
+        private int mTouchTrueCount;
+        private int mStateChangeCount;
+
+        private FGestureManager.State mFinalState;
+        private float mFinalTouchX;
+        private float mFinalTouchY;
+        private int mFinalScrollX;
+        private int mFinalScrollY;
+
+        private int mScrollerFrameCount;
+        private long mScrollerNanos;
+        private long mScrollerAllocations;
+
+        private Report()
+        {
+        }
+
+        void reset(int eventCount)
+        {
+            if (mEventNanos.length < eventCount)
+            {
+                mEventNanos = new long[eventCount];
+                mEventAllocations = new long[eventCount];
+                mEventAction = new int[eventCount];
+            }
+
+            mEventCount = eventCount;
+            mAllocationCounted = false;
+            mInterceptCount = 0;
+            mInterceptTrueCount = 0;
+            mTouchCount = 0;
+            mTouchTrueCount = 0;
+            mStateChangeCount = 0;
+            mFinalState = FGestureManager.State.Idle;
+            mFinalTouchX = 0;
+            mFinalTouchY = 0;
+            mFinalScrollX = 0;
+            mFinalScrollY = 0;
+            mScrollerFrameCount = 0;
+            mScrollerNanos = 0;
+            mScrollerAllocations = 0;
+        }
+
+        public int getEventCount()
+        {
+            return mEventCount;
+        }
+
+        /**
+         * 返回某个事件的分发耗时(纳秒)
+         *
+         * @param index
+         * @return
+         */
+        public long getEventNanos(int index)
+        {
+            if (index < 0 || index >= mEventCount)
+                throw new IndexOutOfBoundsException();
+            return mEventNanos[index];
+        }
+
+        /**
+         * 返回所有事件的分发总耗时(纳秒)
+         *
+         * @return
+         */
+        public long getTotalNanos()
+        {
+            long total = 0;
+            for (int i = 0; i < mEventCount; i++)
+            {
+                total += mEventNanos[i];
+            }
+            return total;
+        }
+
+        /**
+         * 返回某个事件分发过程中创建的对象，单位由{@link AllocationCounter}决定，对象个数或者字节数
+         *
+         * @param index
+         * @return
+         */
+        public long getEventAllocations(int index)
+        {
+            if (index < 0 || index >= mEventCount)
+                throw new IndexOutOfBoundsException();
+            return mEventAllocations[index];
+        }
+
+        /**
+         * 返回所有事件分发过程中创建的对象总和，单位由{@link AllocationCounter}决定
+         *
+         * @return
+         */
+        public long getTotalAllocations()
+        {
+            long total = 0;
+            for (int i = 0; i < mEventCount; i++)
+            {
+                total += mEventAllocations[i];
+            }
+            return total;
+        }
+
+        /**
+         * 返回第一个创建了对象并且不在允许列表中的事件
+         *
+         * @return -1-没有
+         */
+        public int findUnexpectedAllocation()
+        {
+            for (int i = 0; i < mEventCount; i++)
+            {
+                if (mEventAllocations[i] > 0 && (mAllowAllocationActions & (1 << mEventAction[i])) == 0)
+                    return i;
+            }
+            return -1;
+        }
+
+        /**
+         * 是否真的统计了创建对象的数量，没有开启统计或者当前环境不支持统计的时候返回false，
+         * 回放和滚动都需要开启统计
+         *
+         * @return
+         */
+        public boolean isAllocationCounted()
+        {
+            return mAllocationCounted;
+        }
+
+        /**
+         * 检查事件分发和滚动计算过程中是否创建了对象，在允许列表中的事件除外
+         *
+         * @throws IllegalStateException 有创建对象，或者没有真正统计{@link #isAllocationCounted()}
+         */
+        public void verifyNoAllocation()
+        {
+            if (!mAllocationCounted)
+                throw new IllegalStateException("allocation counting is not enabled or not supported");
+
+            final int index = findUnexpectedAllocation();
+            if (index >= 0)
+                throw new IllegalStateException("event " + index + " (action " + mEventAction[index] + ") allocated " + mEventAllocations[index]);
+
+            if (mScrollerAllocations > 0)
+                throw new IllegalStateException("scroller allocated " + mScrollerAllocations + " in " + mScrollerFrameCount + " frames");
+        }
+
+        /**
+         * {@link FGestureManager#onInterceptTouchEvent(MotionEvent)}调用次数
+         *
+         * @return
+         */
+        public int getInterceptCount()
+        {
+            return mInterceptCount;
+        }
+
+        /**
+         * {@link FGestureManager#onInterceptTouchEvent(MotionEvent)}返回true的次数
+         *
+         * @return
+         */
+        public int getInterceptTrueCount()
+        {
+            return mInterceptTrueCount;
+        }
+
+        /**
+         * {@link FGestureManager#onTouchEvent(MotionEvent)}调用次数
+         *
+         * @return
+         */
+        public int getTouchCount()
+        {
+            return mTouchCount;
+        }
+
+        /**
+         * {@link FGestureManager#onTouchEvent(MotionEvent)}返回true的次数
+         *
+         * @return
+         */
+        public int getTouchTrueCount()
+        {
+            return mTouchTrueCount;
+        }
+
+        /**
+         * 回放过程中观察到的状态变化次数
+         *
+         * @return
+         */
+        public int getStateChangeCount()
+        {
+            return mStateChangeCount;
+        }
+
+        public FGestureManager.State getFinalState()
+        {
+            return mFinalState;
+        }
+
+        public float getFinalTouchX()
+        {
+            return mFinalTouchX;
+        }
+
+        public float getFinalTouchY()
+        {
+            return mFinalTouchY;
+        }
+
+        public int getFinalScrollX()
+        {
+            return mFinalScrollX;
+        }
+
+        public int getFinalScrollY()
+        {
+            return mFinalScrollY;
+        }
+
+        /**
+         * {@link #runScroller(FAnimationClock.Manual, int)}推进的帧数
+         *
+         * @return
+         */
+        public int getScrollerFrameCount()
+        {
+            return mScrollerFrameCount;
+        }
+
+        /**
+         * {@link #runScroller(FAnimationClock.Manual, int)}计算滚动的总耗时(纳秒)
+         *
+         * @return
+         */
+        public long getScrollerNanos()
+        {
+            return mScrollerNanos;
+        }
+
+        /**
+         * {@link #runScroller(FAnimationClock.Manual, int)}计算滚动过程中创建的对象，单位由{@link AllocationCounter}决定
+         *
+         * @return
+         */
+        public long getScrollerAllocations()
+        {
+            return mScrollerAllocations;
+        }
+    }
+}
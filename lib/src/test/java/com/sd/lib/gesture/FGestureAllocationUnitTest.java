@@ -0,0 +1,152 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在Robolectric环境下通过{@link FGestureReplayer}回放手势，经过{@link FGestureManager}、
+ * {@link FTouchHelper#processTouchEvent(MotionEvent)}和{@link FScroller#computeScrollOffset()}的真实分发路径，
+ * 使用{@link ThreadAllocationCounter}统计创建的对象
+ * <br>
+ * 虚拟机不支持统计的时候{@link FGestureReplayer.Report#verifyNoAllocation()}会失败
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FGestureAllocationUnitTest
+{
+    private static final long FRAME_PERIOD = FAnimationClock.DEFAULT_FRAME_PERIOD_NANOS;
+    private static final int WARM_UP_COUNT = 3;
+
+    private Context mContext;
+
+    @Before
+    public void setUp()
+    {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    private static FGestureReplayer newReplayer(FGestureManager manager)
+    {
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        replayer.setAllocationCounter(new ThreadAllocationCounter());
+        replayer.addSwipe(0, 0, 0, 0, 600, 50, 400);
+
+        // 允许创建对象的事件：按下的时候获取VelocityTracker
+        replayer.allowAllocation(MotionEvent.ACTION_DOWN);
+        return replayer;
+    }
+
+    @Test
+    public void testReplayDoesNotAllocate()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback());
+        verifyReplay(newReplayer(manager));
+    }
+
+    @Test
+    public void testPooledReplayDoesNotAllocate()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback(), new FGesturePool(2));
+        verifyReplay(newReplayer(manager));
+    }
+
+    @Test
+    public void testFlingDoesNotAllocate()
+    {
+        final TestCallback callback = new TestCallback();
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback);
+        callback.mManager = manager;
+        callback.mFlingVelocityY = 3000;
+
+        final FAnimationClock.Manual clock = new FAnimationClock.Manual(FRAME_PERIOD);
+        final FTrajectoryScrollerApi scrollerApi = new FTrajectoryScrollerApi(mContext, null);
+        scrollerApi.setFramePeriod(clock.getFramePeriod());
+        manager.getScroller().setScrollerApi(scrollerApi);
+        manager.getScroller().setClock(clock);
+
+        final FGestureReplayer replayer = newReplayer(manager);
+
+        long baseTime = 1000;
+        for (int i = 0; i < WARM_UP_COUNT; i++)
+        {
+            replayer.replay(baseTime);
+            replayer.runScroller(clock, 1000);
+            baseTime += 1000;
+        }
+
+        replayer.setAllocationTracking(true);
+        final FGestureReplayer.Report report = replayer.replay(baseTime);
+        assertEquals(FGestureManager.State.Fling, report.getFinalState());
+        replayer.runScroller(clock, 1000);
+
+        assertTrue(report.getScrollerFrameCount() > 1);
+        assertTrue(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    private static void verifyReplay(FGestureReplayer replayer)
+    {
+        // 先回放几次完成延迟初始化
+        long baseTime = 1000;
+        for (int i = 0; i < WARM_UP_COUNT; i++)
+        {
+            replayer.replay(baseTime);
+            baseTime += 1000;
+        }
+
+        replayer.setAllocationTracking(true);
+        final FGestureReplayer.Report report = replayer.replay(baseTime);
+        assertTrue(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    private static class TestCallback extends FGestureManager.Callback
+    {
+        int mFlingVelocityY;
+        FGestureManager mManager;
+
+        @Override
+        public boolean shouldInterceptEvent(MotionEvent event)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean shouldConsumeEvent(MotionEvent event)
+        {
+            return true;
+        }
+
+        @Override
+        public void onEventConsume(MotionEvent event)
+        {
+        }
+
+        @Override
+        public void onEventFinish(VelocityTracker velocityTracker, MotionEvent event)
+        {
+            if (mFlingVelocityY != 0)
+                mManager.getScroller().flingY(0, mFlingVelocityY, -100000, 100000);
+        }
+
+        @Override
+        public void onStateChanged(FGestureManager.State oldState, FGestureManager.State newState)
+        {
+        }
+
+        @Override
+        public void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+        {
+        }
+    }
+}
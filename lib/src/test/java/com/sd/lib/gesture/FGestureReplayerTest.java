@@ -0,0 +1,241 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在Robolectric环境下通过{@link FGestureReplayer}回放手势，检查{@link FGestureManager}的分发结果
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FGestureReplayerTest
+{
+    private static final long FRAME_PERIOD = FAnimationClock.DEFAULT_FRAME_PERIOD_NANOS;
+
+    private Context mContext;
+
+    @Before
+    public void setUp()
+    {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    private static void addSwipe(FGestureReplayer replayer)
+    {
+        // 按下、10个移动事件、抬起
+        replayer.addSwipe(0, 0, 0, 0, 300, 10, 100);
+    }
+
+    @Test
+    public void testConsumeWithoutChild()
+    {
+        final TestCallback callback = new TestCallback();
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback);
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // 没有child消费按下事件，后续事件直接交给onTouchEvent
+        assertEquals(12, report.getEventCount());
+        assertEquals(1, report.getInterceptCount());
+        assertEquals(0, report.getInterceptTrueCount());
+        assertEquals(12, report.getTouchCount());
+        assertEquals(11, report.getTouchTrueCount());
+
+        // 第一个移动事件开始消费，之后的移动事件回调消费
+        assertEquals(9, callback.mConsumeCount);
+        assertEquals(1, callback.mFinishCount);
+
+        assertEquals(2, report.getStateChangeCount());
+        assertEquals(FGestureManager.State.Idle, report.getFinalState());
+        assertEquals(0, report.getFinalTouchX(), 0);
+        assertEquals(300, report.getFinalTouchY(), 0);
+    }
+
+    @Test
+    public void testInterceptFromChild()
+    {
+        final TestCallback callback = new TestCallback();
+        callback.mIntercept = true;
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback);
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        replayer.setChildConsumeDown(true);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // 按下和第一个移动事件经过拦截，拦截的这个事件不会交给onTouchEvent
+        assertEquals(2, report.getInterceptCount());
+        assertEquals(1, report.getInterceptTrueCount());
+        assertEquals(10, report.getTouchCount());
+        assertEquals(8, callback.mConsumeCount);
+        assertEquals(FGestureManager.State.Idle, report.getFinalState());
+        assertEquals(300, report.getFinalTouchY(), 0);
+    }
+
+    @Test
+    public void testChildKeepsGesture()
+    {
+        final TestCallback callback = new TestCallback();
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback);
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        replayer.setChildConsumeDown(true);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // 一直没有拦截，所有事件都交给child
+        assertEquals(12, report.getInterceptCount());
+        assertEquals(0, report.getInterceptTrueCount());
+        assertEquals(0, report.getTouchCount());
+        assertEquals(0, callback.mConsumeCount);
+        assertEquals(0, report.getStateChangeCount());
+    }
+
+    @Test
+    public void testPooledReplayDoesNotLease()
+    {
+        final TestCallback callback = new TestCallback();
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback, new FGesturePool(2));
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // 位置在分发过程中记录，回放结束后不会租借新的对象
+        assertEquals(300, report.getFinalTouchY(), 0);
+        assertEquals(FGestureManager.State.Idle, report.getFinalState());
+        assertNull(manager.peekTouchHelper());
+        assertNull(manager.peekScroller());
+    }
+
+    @Test
+    public void testFlingIsDeterministic()
+    {
+        final FGestureReplayer.Report first = replayFling(new FAnimationClock.Manual(FRAME_PERIOD));
+        final int firstY = first.getFinalScrollY();
+        final int firstFrames = first.getScrollerFrameCount();
+
+        final FGestureReplayer.Report second = replayFling(new FAnimationClock.Manual(FRAME_PERIOD));
+        assertEquals(firstY, second.getFinalScrollY());
+        assertEquals(firstFrames, second.getScrollerFrameCount());
+
+        assertTrue(firstY > 0);
+        assertTrue(firstFrames > 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVerifyNoAllocationWithoutTracking()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback());
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // 没有统计的时候不能当作没有创建对象
+        assertFalse(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVerifyNoAllocationWhenCountingUnsupported()
+    {
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), new TestCallback());
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        replayer.setAllocationTracking(true);
+        addSwipe(replayer);
+        final FGestureReplayer.Report report = replayer.replay(1000);
+
+        // Robolectric中Debug统计不到对象创建，检查必须失败，真实的统计在设备测试中
+        assertFalse(report.isAllocationCounted());
+        report.verifyNoAllocation();
+    }
+
+    private FGestureReplayer.Report replayFling(FAnimationClock.Manual clock)
+    {
+        final TestCallback callback = new TestCallback();
+        callback.mFlingVelocityY = 3000;
+        final FGestureManager manager = new FGestureManager(new FrameLayout(mContext), callback);
+        callback.mManager = manager;
+
+        final FTrajectoryScrollerApi scrollerApi = new FTrajectoryScrollerApi(mContext, null);
+        scrollerApi.setFramePeriod(clock.getFramePeriod());
+        manager.getScroller().setScrollerApi(scrollerApi);
+        manager.getScroller().setClock(clock);
+
+        final FGestureReplayer replayer = new FGestureReplayer(manager);
+        addSwipe(replayer);
+
+        final FGestureReplayer.Report report = replayer.replay(1000);
+        assertEquals(FGestureManager.State.Fling, report.getFinalState());
+
+        replayer.runScroller(clock, 1000);
+        final FScroller scroller = manager.peekScroller();
+        assertNotNull(scroller);
+        assertTrue(scroller.isFinished());
+        assertEquals(scroller.getCurrY(), report.getFinalScrollY());
+        return report;
+    }
+
+    private static class TestCallback extends FGestureManager.Callback
+    {
+        boolean mIntercept;
+        int mFlingVelocityY;
+        FGestureManager mManager;
+
+        int mConsumeCount;
+        int mFinishCount;
+
+        @Override
+        public boolean shouldInterceptEvent(MotionEvent event)
+        {
+            return mIntercept && event.getAction() == MotionEvent.ACTION_MOVE;
+        }
+
+        @Override
+        public boolean shouldConsumeEvent(MotionEvent event)
+        {
+            return true;
+        }
+
+        @Override
+        public void onEventConsume(MotionEvent event)
+        {
+            mConsumeCount++;
+        }
+
+        @Override
+        public void onEventFinish(VelocityTracker velocityTracker, MotionEvent event)
+        {
+            mFinishCount++;
+            if (mFlingVelocityY != 0)
+                mManager.getScroller().flingY(0, mFlingVelocityY, -100000, 100000);
+        }
+
+        @Override
+        public void onStateChanged(FGestureManager.State oldState, FGestureManager.State newState)
+        {
+        }
+
+        @Override
+        public void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+        {
+        }
+    }
+}
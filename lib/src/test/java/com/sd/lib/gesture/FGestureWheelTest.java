@@ -0,0 +1,202 @@
+package com.sd.lib.gesture;
+
+import android.content.Context;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 滚轮滚动测试，下一帧的任务由{@link FrameLayoutWithFrames}保存，测试中手动执行
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FGestureWheelTest
+{
+    private static final long FRAME_PERIOD = FAnimationClock.DEFAULT_FRAME_PERIOD_NANOS;
+    private static final int WHEEL_FACTOR = 100;
+
+    private Context mContext;
+    private FrameLayoutWithFrames mViewGroup;
+    private TestCallback mCallback;
+    private FGestureManager mManager;
+    private FAnimationClock.Manual mClock;
+    private FFrameMonitor mFrameMonitor;
+
+    @Before
+    public void setUp()
+    {
+        mContext = RuntimeEnvironment.application;
+        mViewGroup = new FrameLayoutWithFrames(mContext);
+        mCallback = new TestCallback();
+        mManager = new FGestureManager(mViewGroup, mCallback);
+        mManager.setWheelScrollFactor(WHEEL_FACTOR);
+
+        mClock = new FAnimationClock.Manual(FRAME_PERIOD);
+        final FTrajectoryScrollerApi scrollerApi = new FTrajectoryScrollerApi(mContext, null);
+        scrollerApi.setFramePeriod(mClock.getFramePeriod());
+        mManager.getScroller().setScrollerApi(scrollerApi);
+        mManager.getScroller().setClock(mClock);
+
+        mFrameMonitor = new FFrameMonitor(FRAME_PERIOD);
+        mManager.setFrameMonitor(mFrameMonitor);
+    }
+
+    @Test
+    public void testWheelScroll()
+    {
+        assertTrue(mManager.onGenericMotionEvent(obtainWheelEvent(1)));
+        mViewGroup.runFrames();
+
+        assertEquals(FGestureManager.State.Fling, mManager.getState());
+        runScroller();
+        assertEquals(WHEEL_FACTOR, Math.abs(mCallback.mScrollY));
+        assertEquals(1, mFrameMonitor.getAnimationCount());
+    }
+
+    @Test
+    public void testWheelDuringFling()
+    {
+        final FScroller scroller = mManager.getScroller();
+        assertTrue(scroller.flingY(0, 3000, -100000, 100000));
+        assertEquals(FGestureManager.State.Fling, mManager.getState());
+
+        mClock.advanceFrame();
+        mManager.computeScrollOffset();
+        assertFalse(scroller.isFinished());
+
+        assertTrue(mManager.onGenericMotionEvent(obtainWheelEvent(1)));
+        mViewGroup.runFrames();
+
+        // 惯性滚动被停止并且收到结束通知，然后开始新的滚轮滚动
+        assertEquals(1, mFrameMonitor.getAnimationCount());
+        assertFalse(scroller.isFinished());
+        assertEquals(FGestureManager.State.Fling, mManager.getState());
+
+        mCallback.mScrollY = 0;
+        runScroller();
+
+        // 滚轮滚动从0开始，只滚动滚轮的距离
+        assertEquals(WHEEL_FACTOR, Math.abs(mCallback.mScrollY));
+        assertEquals(2, mFrameMonitor.getAnimationCount());
+
+        mViewGroup.runFrames();
+        assertEquals(FGestureManager.State.Idle, mManager.getState());
+    }
+
+    private void runScroller()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            mClock.advanceFrame();
+            if (!mManager.computeScrollOffset())
+                break;
+        }
+        assertTrue(mManager.getScroller().isFinished());
+    }
+
+    private static MotionEvent obtainWheelEvent(float vscroll)
+    {
+        final MotionEvent.PointerProperties properties = new MotionEvent.PointerProperties();
+        properties.id = 0;
+
+        final MotionEvent.PointerCoords coords = new MotionEvent.PointerCoords();
+        coords.setAxisValue(MotionEvent.AXIS_VSCROLL, vscroll);
+
+        return MotionEvent.obtain(0, 0, MotionEvent.ACTION_SCROLL, 1,
+                new MotionEvent.PointerProperties[]{properties}, new MotionEvent.PointerCoords[]{coords},
+                0, 0, 1, 1, 0, 0, InputDevice.SOURCE_MOUSE, 0);
+    }
+
+    /**
+     * 保存下一帧的任务，由测试手动执行
+     */
+    private static class FrameLayoutWithFrames extends FrameLayout
+    {
+        private final List<Runnable> mFrames = new ArrayList<>();
+
+        public FrameLayoutWithFrames(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action)
+        {
+            mFrames.add(action);
+        }
+
+        @Override
+        public boolean post(Runnable action)
+        {
+            mFrames.add(action);
+            return true;
+        }
+
+        @Override
+        public boolean removeCallbacks(Runnable action)
+        {
+            return mFrames.remove(action);
+        }
+
+        void runFrames()
+        {
+            final List<Runnable> frames = new ArrayList<>(mFrames);
+            mFrames.clear();
+            for (Runnable item : frames)
+            {
+                item.run();
+            }
+        }
+    }
+
+    private static class TestCallback extends FGestureManager.Callback
+    {
+        int mScrollY;
+
+        @Override
+        public boolean shouldConsumeEvent(MotionEvent event)
+        {
+            return true;
+        }
+
+        @Override
+        public boolean shouldConsumeScrollEvent(MotionEvent event)
+        {
+            return true;
+        }
+
+        @Override
+        public void onEventConsume(MotionEvent event)
+        {
+        }
+
+        @Override
+        public void onEventFinish(VelocityTracker velocityTracker, MotionEvent event)
+        {
+        }
+
+        @Override
+        public void onStateChanged(FGestureManager.State oldState, FGestureManager.State newState)
+        {
+        }
+
+        @Override
+        public void onScrollerCompute(int lastX, int lastY, int currX, int currY)
+        {
+            mScrollY += currY - lastY;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sd.lib.gesture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FTrajectoryScrollerApiTest
+{
+    private static final long FRAME_PERIOD = FAnimationClock.DEFAULT_FRAME_PERIOD_NANOS;
+
+    private FAnimationClock.Manual mClock;
+    private FTrajectoryScrollerApi mScrollerApi;
+
+    @Before
+    public void setUp()
+    {
+        mClock = new FAnimationClock.Manual(FRAME_PERIOD);
+        mClock.setTime(100 * FRAME_PERIOD);
+
+        mScrollerApi = new FTrajectoryScrollerApi(RuntimeEnvironment.application, null);
+        mScrollerApi.setFramePeriod(FRAME_PERIOD);
+        mScrollerApi.setClock(mClock);
+    }
+
+    @Test
+    public void testClockMovedBackwards()
+    {
+        mScrollerApi.startScroll(0, 0, 0, 1000, 300);
+        mClock.advanceFrame();
+        mClock.advanceFrame();
+        assertTrue(mScrollerApi.computeScrollOffset());
+        assertTrue(mScrollerApi.getCurrY() > 0);
+
+        // 时钟回拨到开始之前，停在第一帧
+        mClock.setTime(0);
+        assertTrue(mScrollerApi.computeScrollOffset());
+        assertEquals(0, mScrollerApi.getCurrY());
+        assertFalse(mScrollerApi.isFinished());
+
+        // 时钟恢复之后继续滚动到终点
+        mClock.setTime(100 * FRAME_PERIOD);
+        for (int i = 0; i < 1000 && !mScrollerApi.isFinished(); i++)
+        {
+            mClock.advanceFrame();
+            mScrollerApi.computeScrollOffset();
+        }
+        assertTrue(mScrollerApi.isFinished());
+        assertEquals(1000, mScrollerApi.getCurrY());
+    }
+
+    @Test
+    public void testFlingWithClockMovedBackwards()
+    {
+        mScrollerApi.fling(0, 0, 0, 3000, 0, 0, -100000, 100000);
+        mClock.advance(-10 * FRAME_PERIOD);
+        assertTrue(mScrollerApi.computeScrollOffset());
+        assertEquals(0, mScrollerApi.getCurrY());
+    }
+}
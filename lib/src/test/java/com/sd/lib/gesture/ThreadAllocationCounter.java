@@ -0,0 +1,62 @@
+package com.sd.lib.gesture;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 使用HotSpot的线程内存分配计数统计当前线程创建的字节数，用于在JVM单元测试中代替{@link android.os.Debug}
+ * <br>
+ * 和core模块测试中的AllocationCounter使用同样的统计方式
+ */
+final class ThreadAllocationCounter implements FGestureReplayer.AllocationCounter
+{
+    private com.sun.management.ThreadMXBean mBean;
+    private long mThreadId;
+    /**
+     * 读取计数本身创建的字节数
+     */
+    private long mOverhead;
+    private long mStart;
+
+    @Override
+    public boolean start()
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return false;
+
+        mBean = (com.sun.management.ThreadMXBean) bean;
+        if (!mBean.isThreadAllocatedMemorySupported())
+            return false;
+        if (!mBean.isThreadAllocatedMemoryEnabled())
+            mBean.setThreadAllocatedMemoryEnabled(true);
+
+        mThreadId = Thread.currentThread().getId();
+
+        // 取多次空统计的最小值作为统计本身的开销
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++)
+        {
+            begin();
+            overhead = Math.min(overhead, mBean.getThreadAllocatedBytes(mThreadId) - mStart);
+        }
+        mOverhead = overhead;
+        return true;
+    }
+
+    @Override
+    public void begin()
+    {
+        mStart = mBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    @Override
+    public long end()
+    {
+        return mBean.getThreadAllocatedBytes(mThreadId) - mStart - mOverhead;
+    }
+
+    @Override
+    public void stop()
+    {
+    }
+}